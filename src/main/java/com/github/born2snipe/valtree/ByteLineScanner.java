@@ -0,0 +1,237 @@
+package com.github.born2snipe.valtree;
+
+import com.badlogic.gdx.utils.StreamUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * Scans UTF-8 encoded bytes for ValTree lines without decoding the whole document.
+ * <p>
+ * Every character the line rules care about is ASCII and no byte of a multi-byte UTF-8 sequence is in the
+ * ASCII range, so lines can be tokenized on the raw bytes. Only keys and values that are asked for get decoded.
+ * <p>
+ * Bytes are bulk copied from the source into a reusable window, which is a lot cheaper than reading a
+ * memory mapped buffer one byte at a time.
+ */
+class ByteLineScanner extends LineScanner {
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final ByteBuffer source;
+    private final InputStream input;
+    private byte[] buffer;
+    private int windowOffset;
+    private int position;
+    private int limit;
+    private int lineOffset;
+    private boolean endOfInput;
+    private boolean skipLineFeed;
+
+    public ByteLineScanner(ByteBuffer source) {
+        this.source = source;
+        this.input = null;
+        this.buffer = new byte[Math.max(16, Math.min(DEFAULT_BUFFER_SIZE, source.remaining()))];
+    }
+
+    public ByteLineScanner(InputStream input) {
+        this(input, DEFAULT_BUFFER_SIZE);
+    }
+
+    public ByteLineScanner(InputStream input, int bufferSize) {
+        this.source = null;
+        this.input = input;
+        this.buffer = new byte[Math.max(bufferSize, 16)];
+    }
+
+    /**
+     * Memory maps the whole file, the mapping stays valid after the file is closed.
+     */
+    static ByteBuffer map(File file) {
+        FileInputStream input = null;
+        try {
+            input = new FileInputStream(file);
+            return map(input.getChannel());
+        } catch (IOException e) {
+            throw new ValTree.ProblemReadingFileException(e);
+        } finally {
+            if (input != null) {
+                try {
+                    input.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Memory maps the file, or decompresses all of it into memory when it is compressed.
+     */
+    static ByteBuffer load(File file) {
+        ByteBuffer content = map(file);
+        if (compressionOf(content) == Compression.NONE) {
+            return content;
+        }
+
+        InputStream input = null;
+        try {
+            input = Compression.decompress(new FileInputStream(file));
+            return ByteBuffer.wrap(StreamUtils.copyStreamToByteArray(input, (int) Math.min(Integer.MAX_VALUE / 2, content.remaining() * 4L)));
+        } catch (IOException e) {
+            throw new ValTree.ProblemReadingFileException(e);
+        } finally {
+            StreamUtils.closeQuietly(input);
+        }
+    }
+
+    static Compression compressionOf(ByteBuffer content) {
+        byte[] start = new byte[Math.min(content.remaining(), 256)];
+        content.duplicate().get(start);
+        return Compression.detect(start, start.length);
+    }
+
+    static ByteBuffer map(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Unable to memory map files larger than 2GB, size: " + size);
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+
+    @Override
+    public boolean next() throws IOException {
+        while (true) {
+            if (skipLineFeed) {
+                if (position == limit && !endOfInput) {
+                    fill();
+                }
+                if (position < limit && buffer[position] == '\n') {
+                    position++;
+                }
+                skipLineFeed = false;
+            }
+
+            int lineEnd = findLineEnd();
+            if (lineEnd < 0) {
+                return false;
+            }
+            int lineStart = position;
+            lineOffset = windowOffset + lineStart;
+            consumeLineTerminator(lineEnd);
+
+            if (scanLine(lineStart, lineEnd)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return the offset from the start of the input to the beginning of the current line
+     */
+    public int lineOffset() {
+        return lineOffset;
+    }
+
+    @Override
+    protected String newString(int start, int end) {
+        return new String(buffer, start, end - start, UTF_8);
+    }
+
+    @Override
+    protected String intern(StringPool pool, int start, int end) {
+        return pool.intern(buffer, start, end - start);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (input != null) {
+            input.close();
+        }
+    }
+
+    @Override
+    protected int charAt(int index) {
+        return buffer[index] & 0xFF;
+    }
+
+    private int findLineEnd() throws IOException {
+        int scanFrom = position;
+        while (true) {
+            for (int i = scanFrom; i < limit; i++) {
+                byte b = buffer[i];
+                if (b == '\n' || b == '\r') {
+                    return i;
+                }
+            }
+
+            if (endOfInput) {
+                return position < limit ? limit : -1;
+            }
+
+            int scanned = limit - position;
+            fill();
+            scanFrom = position + scanned;
+        }
+    }
+
+    private void consumeLineTerminator(int lineEnd) {
+        position = lineEnd;
+        if (lineEnd == limit) {
+            return;
+        }
+
+        byte terminator = buffer[position++];
+        if (terminator == '\r') {
+            if (position < limit) {
+                if (buffer[position] == '\n') {
+                    position++;
+                }
+            } else {
+                skipLineFeed = true;
+            }
+        }
+    }
+
+    private void fill() throws IOException {
+        int remaining = limit - position;
+        if (remaining == buffer.length) {
+            byte[] grown = new byte[buffer.length * 2];
+            System.arraycopy(buffer, position, grown, 0, remaining);
+            buffer = grown;
+        } else if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, remaining);
+        }
+        windowOffset += position;
+        position = 0;
+        limit = remaining;
+
+        int read = readInto(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            endOfInput = true;
+        } else {
+            limit += read;
+        }
+    }
+
+    private int readInto(byte[] destination, int offset, int length) throws IOException {
+        if (source != null) {
+            int count = Math.min(length, source.remaining());
+            if (count == 0) {
+                return -1;
+            }
+            source.get(destination, offset, count);
+            return count;
+        }
+
+        int read;
+        do {
+            read = input.read(destination, offset, length);
+        } while (read == 0);
+        return read;
+    }
+}
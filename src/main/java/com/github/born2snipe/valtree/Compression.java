@@ -0,0 +1,152 @@
+package com.github.born2snipe.valtree;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * How a document is compressed.
+ * <p>
+ * Parsing detects the compression from the start of the document, so compressed documents can be parsed like any
+ * other. GZIP starts with 0x1f 0x8b. DEFLATE, which is the zlib format, starts with a two byte header: 0x78
+ * followed by 0x01, 0x9c or 0xda, which is what zlib and {@link Deflater} write for the fastest, default and best
+ * compression levels. The header has to pass its checksum and must not ask for a preset dictionary. The levels
+ * in between start with "x^" and are not detected, that is too likely to be text.
+ * <p>
+ * Text can still start like a zlib header, "x" followed by a character whose UTF-8 encoding starts with 0xda does.
+ * So a document is only taken as DEFLATE when its first 256 bytes also inflate without error, and a shorter one
+ * only when it is a complete zlib stream.
+ */
+public enum Compression {
+    NONE, GZIP, DEFLATE;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /**
+     * How much of the start of a document is inflated to confirm a zlib header.
+     */
+    private static final int PEEK_SIZE = 256;
+    private static final int ZLIB_DEFLATE_METHOD = 8;
+    private static final int ZLIB_PRESET_DICTIONARY = 0x20;
+
+    /**
+     * Wraps the output so everything written to it is compressed. Closing the returned stream finishes the
+     * compressed data and closes the output.
+     */
+    public OutputStream compress(OutputStream output) throws IOException {
+        switch (this) {
+            case GZIP:
+                return new GZIPOutputStream(output, BUFFER_SIZE);
+            case DEFLATE:
+                final Deflater deflater = new Deflater();
+                return new DeflaterOutputStream(new BufferedOutputStream(output, BUFFER_SIZE), deflater, BUFFER_SIZE) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            deflater.end();
+                        }
+                    }
+                };
+            default:
+                return output;
+        }
+    }
+
+    /**
+     * Detects the compression from the first two bytes alone, see {@link #detect(byte[], int)} to confirm it.
+     *
+     * @param first  the first byte of the document, or -1 when it is empty
+     * @param second the second byte of the document, or -1 when it is shorter
+     */
+    public static Compression detect(int first, int second) {
+        if (first == 0x1f && second == 0x8b) {
+            return GZIP;
+        }
+        if (isZlibHeader(first, second)) {
+            return DEFLATE;
+        }
+        return NONE;
+    }
+
+    /**
+     * Detects the compression from the start of a document. When that looks like a zlib header, the bytes after
+     * it are inflated and the document is only taken as DEFLATE when that works.
+     *
+     * @param length how many bytes the document starts with, there is no need to pass more than 256. Fewer bytes
+     *               are taken to be the whole document, which then has to be a complete zlib stream
+     */
+    public static Compression detect(byte[] start, int length) {
+        Compression compression = detect(length > 0 ? start[0] & 0xff : -1, length > 1 ? start[1] & 0xff : -1);
+        if (compression == DEFLATE && !inflates(start, length)) {
+            return NONE;
+        }
+        return compression;
+    }
+
+    private static boolean isZlibHeader(int first, int second) {
+        int method = first & 0x0f;
+        int windowSize = first >> 4;
+        int level = second >> 6;
+        return method == ZLIB_DEFLATE_METHOD && windowSize == 7 && (first << 8 | second) % 31 == 0
+                && (second & ZLIB_PRESET_DICTIONARY) == 0 && level != 1;
+    }
+
+    private static boolean inflates(byte[] start, int length) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(start, 0, Math.min(length, PEEK_SIZE));
+            byte[] output = new byte[PEEK_SIZE];
+            while (!inflater.finished() && !inflater.needsInput()) {
+                inflater.inflate(output);
+            }
+            return inflater.finished() || length >= PEEK_SIZE;
+        } catch (DataFormatException e) {
+            return false;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Detects the compression of the stream and undoes it, closing the returned stream closes the input.
+     */
+    public static InputStream decompress(InputStream input) throws IOException {
+        PushbackInputStream pushback = new PushbackInputStream(input, PEEK_SIZE);
+        byte[] start = new byte[PEEK_SIZE];
+        int length = 0;
+        int read;
+        while (length < PEEK_SIZE && (read = pushback.read(start, length, PEEK_SIZE - length)) >= 0) {
+            length += read;
+        }
+        pushback.unread(start, 0, length);
+
+        switch (detect(start, length)) {
+            case GZIP:
+                return new GZIPInputStream(pushback, BUFFER_SIZE);
+            case DEFLATE:
+                final Inflater inflater = new Inflater();
+                return new InflaterInputStream(pushback, inflater, BUFFER_SIZE) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            inflater.end();
+                        }
+                    }
+                };
+            default:
+                return pushback;
+        }
+    }
+}
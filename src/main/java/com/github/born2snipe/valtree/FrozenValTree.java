@@ -0,0 +1,434 @@
+package com.github.born2snipe.valtree;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import com.github.born2snipe.valtree.converter.ValueConverterRegistry;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable snapshot of a {@link ValTree} created by {@link ValTree#freeze()}.
+ * <p>
+ * The whole tree is stored in a handful of flat arrays instead of an object and a map per node. Nodes are
+ * numbered breadth first so the children of a node sit next to each other, values that are numbers are parsed
+ * once up front and a single hash table finds a child by its parent and key. A FrozenValTree itself is only a
+ * light view of one node in those arrays; it can be shared between threads freely.
+ */
+public class FrozenValTree implements Iterable<FrozenValTree> {
+    private static final byte INT_PARSED = 1;
+    private static final byte FLOAT_PARSED = 2;
+
+    private final Columns columns;
+    private final int node;
+
+    private FrozenValTree(Columns columns, int node) {
+        this.columns = columns;
+        this.node = node;
+    }
+
+    static FrozenValTree freeze(ValTree tree) {
+        return new FrozenValTree(new Columns(tree), 0);
+    }
+
+    public String getKey() {
+        int keyId = columns.keyIds[node];
+        return keyId < 0 ? null : columns.keys[keyId];
+    }
+
+    public String getString() {
+        return columns.values[node];
+    }
+
+    public boolean isNull() {
+        return columns.values[node] == null;
+    }
+
+    public Integer getInteger() {
+        if ((columns.flags[node] & INT_PARSED) != 0) {
+            return columns.ints[node];
+        }
+        return getValueAs(Integer.class);
+    }
+
+    public Float getFloat() {
+        if ((columns.flags[node] & FLOAT_PARSED) != 0) {
+            return columns.floats[node];
+        }
+        return getValueAs(Float.class);
+    }
+
+    /**
+     * @return the default when there is no value or it is not a whole number that fits in an int
+     */
+    public int getInt(int defaultValue) {
+        return columns.intAt(node, defaultValue);
+    }
+
+    /**
+     * @return the default when there is no value or it is not a number
+     */
+    public float getFloat(float defaultValue) {
+        return columns.floatAt(node, defaultValue);
+    }
+
+    public <T> T getValueAs(Class<T> expectedReturnType) {
+        return (T) columns.converters.get(expectedReturnType).convertFromText(columns.values[node]);
+    }
+
+    public int size() {
+        return columns.childCounts[node];
+    }
+
+    public boolean hasChildren() {
+        return columns.childCounts[node] > 0;
+    }
+
+    public FrozenValTree getChild(String key) {
+        int child = columns.findChild(node, key);
+        return child < 0 ? null : new FrozenValTree(columns, child);
+    }
+
+    public FrozenValTree getFirstChild() {
+        return getIndex(0);
+    }
+
+    public FrozenValTree getIndex(int index) {
+        if (index < 0 || index >= columns.childCounts[node]) {
+            return null;
+        }
+        return new FrozenValTree(columns, columns.firstChildren[node] + index);
+    }
+
+    public Array<FrozenValTree> getChildren() {
+        Array<FrozenValTree> children = new Array<FrozenValTree>(columns.childCounts[node]);
+        for (FrozenValTree child : this) {
+            children.add(child);
+        }
+        return children;
+    }
+
+    public Array<FrozenValTree> getSiblings() {
+        int parent = columns.parents[node];
+        if (parent < 0) {
+            return new Array<FrozenValTree>(0);
+        }
+        return new FrozenValTree(columns, parent).getChildren();
+    }
+
+    public FrozenValTree query(String query) {
+        int found = columns.query(node, query);
+        return found < 0 ? null : new FrozenValTree(columns, found);
+    }
+
+    public String queryForString(String query) {
+        int found = columns.query(node, query);
+        return found < 0 ? null : columns.values[found];
+    }
+
+    public Integer queryForInteger(String query) {
+        FrozenValTree result = query(query);
+        return result == null ? null : result.getInteger();
+    }
+
+    public Float queryForFloat(String query) {
+        FrozenValTree result = query(query);
+        return result == null ? null : result.getFloat();
+    }
+
+    public int queryForInt(String query, int defaultValue) {
+        return columns.intAt(columns.query(node, query), defaultValue);
+    }
+
+    public float queryForFloat(String query, float defaultValue) {
+        return columns.floatAt(columns.query(node, query), defaultValue);
+    }
+
+    public <T> T queryFor(String query, Class<T> expectedReturnType) {
+        int found = columns.query(node, query);
+        if (found < 0) {
+            return null;
+        }
+        return (T) columns.converters.get(expectedReturnType).convertFromText(columns.values[found]);
+    }
+
+    public FrozenValTree query(ValTreePath query) {
+        int found = columns.query(node, query);
+        return found < 0 ? null : new FrozenValTree(columns, found);
+    }
+
+    public String queryForString(ValTreePath query) {
+        int found = columns.query(node, query);
+        return found < 0 ? null : columns.values[found];
+    }
+
+    public Integer queryForInteger(ValTreePath query) {
+        FrozenValTree result = query(query);
+        return result == null ? null : result.getInteger();
+    }
+
+    public Float queryForFloat(ValTreePath query) {
+        FrozenValTree result = query(query);
+        return result == null ? null : result.getFloat();
+    }
+
+    public int queryForInt(ValTreePath query, int defaultValue) {
+        return columns.intAt(columns.query(node, query), defaultValue);
+    }
+
+    public float queryForFloat(ValTreePath query, float defaultValue) {
+        return columns.floatAt(columns.query(node, query), defaultValue);
+    }
+
+    public <T> T queryFor(ValTreePath query, Class<T> expectedReturnType) {
+        int found = columns.query(node, query);
+        if (found < 0) {
+            return null;
+        }
+        return (T) columns.converters.get(expectedReturnType).convertFromText(columns.values[found]);
+    }
+
+    @Override
+    public Iterator<FrozenValTree> iterator() {
+        return new ChildIterator(columns, columns.firstChildren[node], columns.firstChildren[node] + columns.childCounts[node]);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof FrozenValTree)) {
+            return false;
+        }
+        FrozenValTree tree = (FrozenValTree) other;
+        return tree.columns == columns && tree.node == node;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(columns) * 31 + node;
+    }
+
+    @Override
+    public String toString() {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PrintStream printStream = new PrintStream(output);
+        for (FrozenValTree child : this) {
+            child.log(printStream, 0);
+        }
+        printStream.flush();
+        return new String(output.toByteArray());
+    }
+
+    private void log(PrintStream printStream, int depth) {
+        for (int i = 0; i < depth; i++) {
+            printStream.print(' ');
+        }
+        printStream.print(getKey());
+        if (!isNull()) {
+            printStream.print(" ");
+            printStream.print(getString());
+        }
+        printStream.println();
+        for (FrozenValTree child : this) {
+            child.log(printStream, depth + 1);
+        }
+    }
+
+    private static class ChildIterator implements Iterator<FrozenValTree> {
+        private final Columns columns;
+        private final int end;
+        private int next;
+
+        ChildIterator(Columns columns, int first, int end) {
+            this.columns = columns;
+            this.next = first;
+            this.end = end;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < end;
+        }
+
+        @Override
+        public FrozenValTree next() {
+            if (next >= end) {
+                throw new NoSuchElementException();
+            }
+            return new FrozenValTree(columns, next++);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("A FrozenValTree can not be modified");
+        }
+    }
+
+    private static class Columns {
+        final String[] keys;
+        final int[] keyIds;
+        final String[] values;
+        final int[] parents;
+        final int[] firstChildren;
+        final int[] childCounts;
+        final int[] ints;
+        final float[] floats;
+        final byte[] flags;
+        final int[] childSlots;
+        final ValueConverterRegistry converters;
+
+        Columns(ValTree root) {
+            converters = root.getConverters();
+            Array<ValTree> nodes = new Array<ValTree>();
+            nodes.add(root);
+            for (int i = 0; i < nodes.size; i++) {
+                for (ValTree child : nodes.get(i)) {
+                    nodes.add(child);
+                }
+            }
+
+            int count = nodes.size;
+            keyIds = new int[count];
+            values = new String[count];
+            parents = new int[count];
+            firstChildren = new int[count];
+            childCounts = new int[count];
+            ints = new int[count];
+            floats = new float[count];
+            flags = new byte[count];
+
+            ObjectIntMap<String> keyTable = new ObjectIntMap<String>();
+            Array<String> distinctKeys = new Array<String>(String.class);
+            parents[0] = -1;
+            int nextChild = 1;
+            for (int i = 0; i < count; i++) {
+                ValTree tree = nodes.get(i);
+                String key = tree.getKey();
+                int keyId = key == null ? -1 : keyTable.get(key, -1);
+                if (keyId < 0 && key != null) {
+                    keyId = distinctKeys.size;
+                    keyTable.put(key, keyId);
+                    distinctKeys.add(key);
+                }
+                keyIds[i] = keyId;
+                values[i] = tree.getString();
+                parseNumbers(i);
+
+                int children = tree.size();
+                firstChildren[i] = nextChild;
+                childCounts[i] = children;
+                for (int c = 0; c < children; c++) {
+                    parents[nextChild + c] = i;
+                }
+                nextChild += children;
+            }
+            keys = distinctKeys.toArray();
+
+            int capacity = 2;
+            while (capacity < count * 2) {
+                capacity <<= 1;
+            }
+            childSlots = new int[capacity];
+            for (int i = 1; i < count; i++) {
+                int mask = capacity - 1;
+                int slot = slot(parents[i], keys[keyIds[i]].hashCode(), mask);
+                while (childSlots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                childSlots[slot] = i + 1;
+            }
+        }
+
+        int findChild(int parent, String key) {
+            return findChild(parent, key.hashCode(), key, 0, key.length());
+        }
+
+        /**
+         * Finds the child whose key is the given range of the text, without cutting the range out.
+         *
+         * @param hash the {@link String#hashCode()} the range would have
+         */
+        int findChild(int parent, int hash, String text, int start, int end) {
+            int mask = childSlots.length - 1;
+            int slot = slot(parent, hash, mask);
+            int length = end - start;
+            int candidate;
+            while ((candidate = childSlots[slot]) != 0) {
+                int child = candidate - 1;
+                String key = keys[keyIds[child]];
+                if (parents[child] == parent && key.length() == length && key.regionMatches(0, text, start, length)) {
+                    return child;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        int intAt(int node, int defaultValue) {
+            return node >= 0 && (flags[node] & INT_PARSED) != 0 ? ints[node] : defaultValue;
+        }
+
+        float floatAt(int node, float defaultValue) {
+            return node >= 0 && (flags[node] & FLOAT_PARSED) != 0 ? floats[node] : defaultValue;
+        }
+
+        int query(int from, String query) {
+            int current = from;
+            int start = 0;
+            int length = query.length();
+            while (length > 0 && query.charAt(length - 1) == '.') {
+                length--;
+            }
+            if (length == 0 && query.length() > 0) {
+                return current;
+            }
+
+            while (current >= 0) {
+                int end = start;
+                int hash = 0;
+                char c;
+                while (end < length && (c = query.charAt(end)) != '.') {
+                    hash = 31 * hash + c;
+                    end++;
+                }
+                current = findChild(current, hash, query, start, end);
+                if (end == length) {
+                    return current;
+                }
+                start = end + 1;
+            }
+            return -1;
+        }
+
+        int query(int from, ValTreePath query) {
+            int current = from;
+            for (int i = 0, size = query.size(); i < size && current >= 0; i++) {
+                current = findChild(current, query.segment(i));
+            }
+            return current;
+        }
+
+        private void parseNumbers(int node) {
+            String value = values[node];
+            if (value == null) {
+                return;
+            }
+            try {
+                ints[node] = Integer.parseInt(value);
+                flags[node] |= INT_PARSED;
+            } catch (NumberFormatException ignored) {
+            }
+            try {
+                floats[node] = Float.parseFloat(value);
+                flags[node] |= FLOAT_PARSED;
+            } catch (NumberFormatException ignored) {
+            }
+        }
+
+        private static int slot(int parent, int keyHash, int mask) {
+            int hash = parent * 31 + keyHash;
+            return (hash ^ (hash >>> 16)) & mask;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.github.born2snipe.valtree;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+/**
+ * Writes a tree for {@link ValTree#saveIncremental(File)}.
+ * <p>
+ * Every node remembers where its subtree was written, relative to where its parent was written. Only dirty nodes
+ * are visited: their own line is written again, while the subtrees of clean children are copied from the previous
+ * file by the channel, adjacent ones in a single transfer. Nodes without a position, like newly added ones, are
+ * written in full. The new file is written next to the old one and then takes its place.
+ */
+class IncrementalSave {
+    private final TextOutput output = new TextOutput(' ', "\n");
+    private FileChannel previous;
+    private long runStart;
+    private long runLength;
+
+    /**
+     * @param incremental false when the file was not written by the last save of the tree, everything is written
+     */
+    void write(ValTree root, File file, boolean incremental) throws IOException {
+        File target = file.getAbsoluteFile();
+        File temp = new File(target.getParentFile(), target.getName() + ".tmp");
+        FileOutputStream outputStream = new FileOutputStream(temp);
+        long length;
+        boolean written = false;
+        try {
+            previous = incremental ? new FileInputStream(target).getChannel() : null;
+            output.open(outputStream.getChannel());
+            writeChildren(root, 0, incremental ? 0 : -1, 0);
+            output.flush();
+            length = output.position();
+            written = true;
+        } finally {
+            output.release();
+            outputStream.close();
+            if (previous != null) {
+                previous.close();
+                previous = null;
+            }
+            if (!written) {
+                temp.delete();
+            }
+        }
+        root.saved(0, length);
+
+        if (!temp.renameTo(target) && !(target.delete() && temp.renameTo(target))) {
+            throw new IOException("Unable to replace " + target);
+        }
+    }
+
+    /**
+     * @param previousStart where the node was in the previous file, -1 when it was not
+     */
+    private void writeChildren(ValTree node, int depth, long previousStart, long start) throws IOException {
+        for (int i = 0, count = node.childCount(); i < count; i++) {
+            ValTree child = node.childAt(i);
+            long childPreviousStart = previousStart >= 0 && child.spanOffset() >= 0 ? previousStart + child.spanOffset() : -1;
+            if (childPreviousStart >= 0 && !child.isDirty()) {
+                if (runLength == 0 || runStart + runLength != childPreviousStart) {
+                    copyRun();
+                    runStart = childPreviousStart;
+                }
+                runLength += child.spanLength();
+                child.moveSpan(output.position() + (childPreviousStart - runStart) - start);
+            } else {
+                copyRun();
+                writeNode(child, depth, childPreviousStart, start);
+            }
+        }
+        copyRun();
+    }
+
+    private void writeNode(ValTree node, int depth, long previousStart, long parentStart) throws IOException {
+        long start = output.position();
+        output.writeLine(depth, node.getKey(), node.getString());
+        writeChildren(node, depth + 1, previousStart, start);
+        node.saved(start - parentStart, output.position() - start);
+    }
+
+    private void copyRun() throws IOException {
+        if (runLength > 0) {
+            output.copy(previous, runStart, runLength);
+            runLength = 0;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.github.born2snipe.valtree;
+
+import com.badlogic.gdx.utils.IntArray;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Where every node of a UTF-8 encoded ValTree document starts and where its subtree ends.
+ * <p>
+ * Only two ints are kept per line: the byte offset of the line and the index of the first line that is not
+ * part of its subtree. A line is read again, and its key and value decoded, only when the node is needed.
+ */
+class LineIndex {
+    private final ByteBuffer content;
+    private final int start;
+    private final int end;
+    private final int[] lineOffsets;
+    private final int[] subtreeEnds;
+    private final LineReader lineReader = new LineReader();
+
+    private LineIndex(ByteBuffer content, int[] lineOffsets, int[] subtreeEnds) {
+        this.content = content;
+        this.start = content.position();
+        this.end = content.limit();
+        this.lineOffsets = lineOffsets;
+        this.subtreeEnds = subtreeEnds;
+    }
+
+    /**
+     * Records the offset and subtree of every line using the same parent stack rules as {@link ValTreeReader}.
+     *
+     * @param pool where keys and short values come from when lines are read, may be null
+     */
+    public static LineIndex build(ByteBuffer content, StringPool pool) {
+        IntArray offsets = new IntArray();
+        IntArray subtreeEnds = new IntArray();
+        IntArray openLines = new IntArray();
+        IntArray openIndentations = new IntArray();
+
+        ByteLineScanner scanner = new ByteLineScanner(content.duplicate());
+        try {
+            while (scanner.next()) {
+                int line = offsets.size;
+                int indentation = scanner.depth();
+                while (openIndentations.size > 0 && indentation <= openIndentations.peek()) {
+                    openIndentations.pop();
+                    subtreeEnds.set(openLines.pop(), line);
+                }
+
+                offsets.add(scanner.lineOffset());
+                subtreeEnds.add(0);
+                openLines.add(line);
+                openIndentations.add(indentation);
+            }
+        } catch (IOException e) {
+            throw new ValTree.ProblemReadingFileException(e);
+        }
+
+        while (openLines.size > 0) {
+            subtreeEnds.set(openLines.pop(), offsets.size);
+        }
+        LineIndex index = new LineIndex(content, offsets.toArray(), subtreeEnds.toArray());
+        index.lineReader.setStringPool(pool);
+        return index;
+    }
+
+    /**
+     * Finds where every top level node starts without building a full index.
+     *
+     * @return the byte offsets of the top level lines from the position of the content, in document order
+     */
+    public static IntArray topLevelOffsets(ByteBuffer content) {
+        IntArray offsets = new IntArray();
+        ByteLineScanner scanner = new ByteLineScanner(content.duplicate());
+        try {
+            int topLevelIndentation = -1;
+            while (scanner.next()) {
+                int indentation = scanner.depth();
+                if (offsets.size == 0 || indentation <= topLevelIndentation) {
+                    offsets.add(scanner.lineOffset());
+                    topLevelIndentation = indentation;
+                }
+            }
+        } catch (IOException e) {
+            throw new ValTree.ProblemReadingFileException(e);
+        }
+        return offsets;
+    }
+
+    public int size() {
+        return lineOffsets.length;
+    }
+
+    /**
+     * @return the first line after the given line that is not one of its descendants
+     */
+    public int subtreeEnd(int line) {
+        return subtreeEnds[line];
+    }
+
+    /**
+     * Re-reads the line so {@link #key()} and {@link #value()} describe it.
+     */
+    public void read(int line) {
+        lineReader.read(start + lineOffsets[line]);
+    }
+
+    public String key() {
+        return lineReader.key();
+    }
+
+    public String value() {
+        return lineReader.value();
+    }
+
+    private class LineReader extends LineScanner {
+        private byte[] line = new byte[256];
+        private int offset;
+
+        public void read(int offset) {
+            this.offset = offset;
+            next();
+        }
+
+        @Override
+        public boolean next() {
+            int length = 0;
+            while (offset < end) {
+                byte b = content.get(offset);
+                if (b == '\n' || b == '\r') {
+                    break;
+                }
+                if (length == line.length) {
+                    byte[] grown = new byte[line.length * 2];
+                    System.arraycopy(line, 0, grown, 0, length);
+                    line = grown;
+                }
+                line[length++] = b;
+                offset++;
+            }
+            return scanLine(0, length);
+        }
+
+        @Override
+        protected String newString(int start, int end) {
+            return new String(line, start, end - start, ByteLineScanner.UTF_8);
+        }
+
+        @Override
+        protected String intern(StringPool pool, int start, int end) {
+            return pool.intern(line, start, end - start);
+        }
+
+        @Override
+        protected int charAt(int index) {
+            return line[index] & 0xFF;
+        }
+    }
+}
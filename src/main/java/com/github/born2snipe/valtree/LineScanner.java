@@ -0,0 +1,129 @@
+package com.github.born2snipe.valtree;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Walks the lines of a ValTree document, exposing the depth, key and value of each line that has a key.
+ * <p>
+ * The line rules are the same ones the regex based parsing used to apply:
+ * <ul>
+ * <li>lines end with \n, \r or \r\n</li>
+ * <li>a comment starts at the first "//" that is followed by at least one character</li>
+ * <li>the depth is the number of leading whitespace characters, tabs count as one</li>
+ * <li>the key ends at the first whitespace, the value is everything after that whitespace run</li>
+ * </ul>
+ * Subclasses locate the lines and hand them to {@link #scanLine(int, int)}, keys and values are only turned
+ * into Strings when asked for.
+ */
+abstract class LineScanner implements Closeable {
+    protected int depth;
+    protected int keyStart;
+    protected int keyEnd;
+    protected int valueStart;
+    protected int valueEnd;
+    protected StringPool pool;
+
+    /**
+     * Advances to the next line that has a key, skipping blank and comment only lines.
+     *
+     * @return false when there are no more lines
+     */
+    public abstract boolean next() throws IOException;
+
+    protected abstract int charAt(int index);
+
+    protected abstract String newString(int start, int end);
+
+    protected abstract String intern(StringPool pool, int start, int end);
+
+    /**
+     * Keys, and values that are short enough, will come from the pool from now on.
+     */
+    public void setStringPool(StringPool pool) {
+        this.pool = pool;
+    }
+
+    public String key() {
+        if (pool != null) {
+            return intern(pool, keyStart, keyEnd);
+        }
+        return newString(keyStart, keyEnd);
+    }
+
+    public String value() {
+        if (valueStart < 0) {
+            return null;
+        }
+        if (pool != null && valueEnd - valueStart <= pool.getMaxValueLength()) {
+            return intern(pool, valueStart, valueEnd);
+        }
+        return newString(valueStart, valueEnd);
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    public boolean hasValue() {
+        return valueStart >= 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+    }
+
+    /**
+     * @return false if the line is blank once the comment is removed
+     */
+    protected boolean scanLine(int start, int end) {
+        int contentEnd = end;
+        for (int i = start; i + 2 < end; i++) {
+            if (charAt(i) == '/' && charAt(i + 1) == '/') {
+                contentEnd = i;
+                break;
+            }
+        }
+
+        int first = start;
+        while (first < contentEnd && charAt(first) <= ' ') {
+            first++;
+        }
+        if (first == contentEnd) {
+            return false;
+        }
+
+        int last = contentEnd;
+        while (charAt(last - 1) <= ' ') {
+            last--;
+        }
+
+        int leadingWhitespace = start;
+        while (leadingWhitespace < contentEnd && isWhitespace(charAt(leadingWhitespace))) {
+            leadingWhitespace++;
+        }
+        depth = leadingWhitespace - start;
+
+        keyStart = first;
+        keyEnd = first;
+        while (keyEnd < last && !isWhitespace(charAt(keyEnd))) {
+            keyEnd++;
+        }
+
+        if (keyEnd == last) {
+            valueStart = -1;
+            valueEnd = -1;
+        } else {
+            valueStart = keyEnd;
+            while (isWhitespace(charAt(valueStart))) {
+                valueStart++;
+            }
+            valueEnd = last;
+        }
+        return true;
+    }
+
+    static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
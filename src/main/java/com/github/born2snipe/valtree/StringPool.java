@@ -0,0 +1,252 @@
+package com.github.born2snipe.valtree;
+
+/**
+ * Hands out one canonical String per distinct run of characters, so keys (and optionally short values) that
+ * repeat throughout a document share a single instance.
+ * <p>
+ * Lookups are done on the characters or UTF-8 bytes of the parse buffer, a String is only created the first
+ * time a run of characters is seen. UTF-8 is decoded while hashing and comparing, only malformed bytes are turned
+ * into a String first, so they get the same replacement characters as everywhere else. A pool can be reused for
+ * several parses but is not thread safe.
+ */
+public class StringPool {
+    private static final int MIN_SUPPLEMENTARY_CODE_POINT = 0x10000;
+    private final int maxValueLength;
+    private String[] strings = new String[256];
+    private int[] hashes = new int[256];
+    private int size;
+
+    /**
+     * A pool that is only used for keys.
+     */
+    public StringPool() {
+        this(0);
+    }
+
+    /**
+     * @param maxValueLength values up to this many characters (or bytes when parsing UTF-8) are pooled as well
+     */
+    public StringPool(int maxValueLength) {
+        this.maxValueLength = maxValueLength;
+    }
+
+    public int getMaxValueLength() {
+        return maxValueLength;
+    }
+
+    /**
+     * @return how many distinct Strings are in the pool
+     */
+    public int size() {
+        return size;
+    }
+
+    public String intern(String string) {
+        int hash = string.hashCode();
+        int mask = strings.length - 1;
+        int index = slot(hash, mask);
+        String existing;
+        while ((existing = strings[index]) != null) {
+            if (hashes[index] == hash && existing.equals(string)) {
+                return existing;
+            }
+            index = (index + 1) & mask;
+        }
+        return add(index, hash, string);
+    }
+
+    public String intern(char[] chars, int offset, int length) {
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + chars[offset + i];
+        }
+
+        int mask = strings.length - 1;
+        int index = slot(hash, mask);
+        String existing;
+        while ((existing = strings[index]) != null) {
+            if (hashes[index] == hash && matches(existing, chars, offset, length)) {
+                return existing;
+            }
+            index = (index + 1) & mask;
+        }
+        return add(index, hash, new String(chars, offset, length));
+    }
+
+    /**
+     * @param bytes UTF-8 encoded characters
+     */
+    public String intern(byte[] bytes, int offset, int length) {
+        int hash = 0;
+        int chars = 0;
+        int end = offset + length;
+        for (int i = offset; i < end; ) {
+            byte b = bytes[i];
+            if (b >= 0) {
+                hash = 31 * hash + b;
+                chars++;
+                i++;
+                continue;
+            }
+
+            int codePoint = codePoint(bytes, i, end);
+            if (codePoint < 0) {
+                return intern(new String(bytes, offset, length, ByteLineScanner.UTF_8));
+            }
+            if (codePoint >= MIN_SUPPLEMENTARY_CODE_POINT) {
+                hash = 31 * (31 * hash + highSurrogate(codePoint)) + lowSurrogate(codePoint);
+                chars += 2;
+            } else {
+                hash = 31 * hash + codePoint;
+                chars++;
+            }
+            i += sequenceLength(b);
+        }
+
+        int mask = strings.length - 1;
+        int index = slot(hash, mask);
+        String existing;
+        while ((existing = strings[index]) != null) {
+            if (hashes[index] == hash && matches(existing, chars, bytes, offset, end)) {
+                return existing;
+            }
+            index = (index + 1) & mask;
+        }
+        return add(index, hash, new String(bytes, offset, length, ByteLineScanner.UTF_8));
+    }
+
+    public void clear() {
+        strings = new String[256];
+        hashes = new int[256];
+        size = 0;
+    }
+
+    private String add(int index, int hash, String string) {
+        strings[index] = string;
+        hashes[index] = hash;
+        size++;
+        if (size * 2 > strings.length) {
+            grow();
+        }
+        return string;
+    }
+
+    private void grow() {
+        String[] oldStrings = strings;
+        int[] oldHashes = hashes;
+        strings = new String[oldStrings.length * 2];
+        hashes = new int[oldStrings.length * 2];
+        int mask = strings.length - 1;
+        for (int i = 0; i < oldStrings.length; i++) {
+            if (oldStrings[i] != null) {
+                int index = slot(oldHashes[i], mask);
+                while (strings[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                strings[index] = oldStrings[i];
+                hashes[index] = oldHashes[i];
+            }
+        }
+    }
+
+    private static int slot(int hash, int mask) {
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private static boolean matches(String string, char[] chars, int offset, int length) {
+        if (string.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (string.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param chars how many UTF-16 characters the well formed UTF-8 bytes decode to
+     */
+    private static boolean matches(String string, int chars, byte[] bytes, int offset, int end) {
+        if (string.length() != chars) {
+            return false;
+        }
+        int c = 0;
+        for (int i = offset; i < end; ) {
+            byte b = bytes[i];
+            if (b >= 0) {
+                if (string.charAt(c++) != b) {
+                    return false;
+                }
+                i++;
+                continue;
+            }
+
+            int codePoint = codePoint(bytes, i, end);
+            if (codePoint >= MIN_SUPPLEMENTARY_CODE_POINT) {
+                if (string.charAt(c++) != highSurrogate(codePoint) || string.charAt(c++) != lowSurrogate(codePoint)) {
+                    return false;
+                }
+            } else if (string.charAt(c++) != codePoint) {
+                return false;
+            }
+            i += sequenceLength(b);
+        }
+        return true;
+    }
+
+    private static int sequenceLength(byte lead) {
+        int b = lead & 0xff;
+        return b < 0x80 ? 1 : b < 0xe0 ? 2 : b < 0xf0 ? 3 : 4;
+    }
+
+    /**
+     * @return the code point of the multi byte sequence at the index, or -1 when it is malformed, overlong, a
+     * surrogate or cut off by the end
+     */
+    private static int codePoint(byte[] bytes, int index, int end) {
+        int lead = bytes[index] & 0xff;
+        int length;
+        int codePoint;
+        int min;
+        if (lead >= 0xc2 && lead < 0xe0) {
+            length = 2;
+            codePoint = lead & 0x1f;
+            min = 0x80;
+        } else if (lead >= 0xe0 && lead < 0xf0) {
+            length = 3;
+            codePoint = lead & 0x0f;
+            min = 0x800;
+        } else if (lead >= 0xf0 && lead < 0xf5) {
+            length = 4;
+            codePoint = lead & 0x07;
+            min = MIN_SUPPLEMENTARY_CODE_POINT;
+        } else {
+            return -1;
+        }
+        if (index + length > end) {
+            return -1;
+        }
+
+        for (int i = 1; i < length; i++) {
+            int b = bytes[index + i] & 0xff;
+            if ((b & 0xc0) != 0x80) {
+                return -1;
+            }
+            codePoint = codePoint << 6 | b & 0x3f;
+        }
+        if (codePoint < min || codePoint > Character.MAX_CODE_POINT || (codePoint >= 0xd800 && codePoint < 0xe000)) {
+            return -1;
+        }
+        return codePoint;
+    }
+
+    private static char highSurrogate(int codePoint) {
+        return (char) ((codePoint >>> 10) + (Character.MIN_HIGH_SURROGATE - (MIN_SUPPLEMENTARY_CODE_POINT >>> 10)));
+    }
+
+    private static char lowSurrogate(int codePoint) {
+        return (char) ((codePoint & 0x3ff) + Character.MIN_LOW_SURROGATE);
+    }
+}
@@ -0,0 +1,135 @@
+package com.github.born2snipe.valtree;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Scans character input for ValTree lines using a single reusable buffer.
+ */
+class TextLineScanner extends LineScanner {
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private char[] buffer;
+    private int position;
+    private int limit;
+    private boolean endOfInput;
+    private boolean skipLineFeed;
+
+    public TextLineScanner(Reader reader) {
+        this(reader, DEFAULT_BUFFER_SIZE);
+    }
+
+    public TextLineScanner(Reader reader, int bufferSize) {
+        this.reader = reader;
+        this.buffer = new char[Math.max(bufferSize, 16)];
+    }
+
+    @Override
+    public boolean next() throws IOException {
+        while (true) {
+            if (skipLineFeed) {
+                if (position == limit && !endOfInput) {
+                    fill();
+                }
+                if (position < limit && buffer[position] == '\n') {
+                    position++;
+                }
+                skipLineFeed = false;
+            }
+
+            int lineEnd = findLineEnd();
+            if (lineEnd < 0) {
+                return false;
+            }
+            int lineStart = position;
+            consumeLineTerminator(lineEnd);
+
+            if (scanLine(lineStart, lineEnd)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    protected String newString(int start, int end) {
+        return new String(buffer, start, end - start);
+    }
+
+    @Override
+    protected String intern(StringPool pool, int start, int end) {
+        return pool.intern(buffer, start, end - start);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    @Override
+    protected int charAt(int index) {
+        return buffer[index];
+    }
+
+    private int findLineEnd() throws IOException {
+        int scanFrom = position;
+        while (true) {
+            for (int i = scanFrom; i < limit; i++) {
+                char c = buffer[i];
+                if (c == '\n' || c == '\r') {
+                    return i;
+                }
+            }
+
+            if (endOfInput) {
+                return position < limit ? limit : -1;
+            }
+
+            int scanned = limit - position;
+            fill();
+            scanFrom = position + scanned;
+        }
+    }
+
+    private void consumeLineTerminator(int lineEnd) {
+        position = lineEnd;
+        if (lineEnd == limit) {
+            return;
+        }
+
+        char terminator = buffer[position++];
+        if (terminator == '\r') {
+            if (position < limit) {
+                if (buffer[position] == '\n') {
+                    position++;
+                }
+            } else {
+                skipLineFeed = true;
+            }
+        }
+    }
+
+    private void fill() throws IOException {
+        int remaining = limit - position;
+        if (remaining == buffer.length) {
+            char[] grown = new char[buffer.length * 2];
+            System.arraycopy(buffer, position, grown, 0, remaining);
+            buffer = grown;
+        } else if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, remaining);
+        }
+        position = 0;
+        limit = remaining;
+
+        int read;
+        do {
+            read = reader.read(buffer, limit, buffer.length - limit);
+        } while (read == 0);
+
+        if (read < 0) {
+            endOfInput = true;
+        } else {
+            limit += read;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.github.born2snipe.valtree;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes lines of the text format as UTF-8 into a byte buffer that is handed to a stream or a channel whenever
+ * it fills up.
+ * <p>
+ * Characters are encoded by hand and indentation is copied from a run of padding prepared up front instead of
+ * being written one character per level.
+ */
+class TextOutput {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final byte[] paddingBytes;
+    private final byte[] lineEnding;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+    private byte[] indentation;
+    private int position;
+    private long written;
+    private OutputStream outputStream;
+    private WritableByteChannel channel;
+
+    TextOutput(char padding, String lineEnding) {
+        this.paddingBytes = String.valueOf(padding).getBytes(ByteLineScanner.UTF_8);
+        this.lineEnding = lineEnding.getBytes(ByteLineScanner.UTF_8);
+        this.indentation = new byte[paddingBytes.length * 64];
+        fillIndentation(0);
+    }
+
+    void open(OutputStream output) {
+        release();
+        outputStream = output;
+    }
+
+    void open(WritableByteChannel output) {
+        release();
+        channel = output;
+    }
+
+    /**
+     * Forgets the output and anything still in the buffer.
+     */
+    void release() {
+        outputStream = null;
+        channel = null;
+        position = 0;
+        written = 0;
+    }
+
+    /**
+     * @return how many bytes were written since the output was opened, the buffered ones included
+     */
+    long position() {
+        return written + position;
+    }
+
+    /**
+     * @param value null to only write the key
+     * @throws IllegalStateException when there is no key, a line without one would not read back
+     */
+    void writeLine(int depth, String key, String value) throws IOException {
+        if (key == null) {
+            throw new IllegalStateException("Unable to write a node without a key, its value is: " + value);
+        }
+        writeIndentation(depth);
+        writeText(key);
+        if (value != null) {
+            writeByte(' ');
+            writeText(value);
+        }
+        writeBytes(lineEnding, lineEnding.length);
+    }
+
+    /**
+     * Copies bytes of the file straight to the channel this was opened with, without them passing through the
+     * buffer.
+     */
+    void copy(FileChannel source, long start, long length) throws IOException {
+        drain();
+        while (length > 0) {
+            long copied = source.transferTo(start, length, channel);
+            if (copied <= 0) {
+                throw new IOException("The file ended before byte " + (start + length));
+            }
+            start += copied;
+            length -= copied;
+            written += copied;
+        }
+    }
+
+    /**
+     * Hands everything in the buffer to the output, and flushes it when it is a stream.
+     */
+    void flush() throws IOException {
+        drain();
+        if (outputStream != null) {
+            outputStream.flush();
+        }
+    }
+
+    private void drain() throws IOException {
+        if (outputStream != null) {
+            outputStream.write(buffer, 0, position);
+        } else {
+            byteBuffer.clear();
+            byteBuffer.limit(position);
+            while (byteBuffer.hasRemaining()) {
+                channel.write(byteBuffer);
+            }
+        }
+        written += position;
+        position = 0;
+    }
+
+    private void writeIndentation(int depth) throws IOException {
+        int length = depth * paddingBytes.length;
+        if (indentation.length < length) {
+            int filled = indentation.length;
+            byte[] larger = new byte[Math.max(length, indentation.length * 2)];
+            System.arraycopy(indentation, 0, larger, 0, filled);
+            indentation = larger;
+            fillIndentation(filled);
+        }
+        writeBytes(indentation, length);
+    }
+
+    private void fillIndentation(int from) {
+        for (int i = from; i < indentation.length; i++) {
+            indentation[i] = paddingBytes[i % paddingBytes.length];
+        }
+    }
+
+    private void writeBytes(byte[] bytes, int length) throws IOException {
+        int offset = 0;
+        while (offset < length) {
+            if (position == buffer.length) {
+                drain();
+            }
+            int count = Math.min(length - offset, buffer.length - position);
+            System.arraycopy(bytes, offset, buffer, position, count);
+            position += count;
+            offset += count;
+        }
+    }
+
+    private void writeByte(int b) throws IOException {
+        if (position == buffer.length) {
+            drain();
+        }
+        buffer[position++] = (byte) b;
+    }
+
+    /**
+     * Encodes in runs that are sure to fit in the buffer, so the loop over the characters has no bounds checks of
+     * its own. A run leaves a byte to spare for a surrogate pair starting on its last character.
+     */
+    private void writeText(String text) throws IOException {
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            if (buffer.length - position < 5) {
+                drain();
+            }
+            int runEnd = Math.min(length, i + (buffer.length - position - 1) / 3);
+            while (i < runEnd) {
+                char c = text.charAt(i++);
+                if (c < 0x80) {
+                    buffer[position++] = (byte) c;
+                } else if (c < 0x800) {
+                    buffer[position++] = (byte) (0xC0 | (c >> 6));
+                    buffer[position++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i < length && Character.isLowSurrogate(text.charAt(i))) {
+                    int codePoint = Character.toCodePoint(c, text.charAt(i++));
+                    buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                    buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+                    buffer[position++] = '?';
+                } else {
+                    buffer[position++] = (byte) (0xE0 | (c >> 12));
+                    buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+        }
+    }
+}
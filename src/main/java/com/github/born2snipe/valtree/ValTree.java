@@ -1,48 +1,73 @@
 package com.github.born2snipe.valtree;
 
+import com.badlogic.gdx.Files.FileType;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
 import com.badlogic.gdx.utils.ObjectMap;
-import com.badlogic.gdx.utils.OrderedMap;
-import com.github.born2snipe.valtree.converter.FloatConverter;
-import com.github.born2snipe.valtree.converter.IntegerConverter;
-import com.github.born2snipe.valtree.converter.StringConverter;
+import com.badlogic.gdx.utils.StreamUtils;
+import com.github.born2snipe.valtree.converter.NumberScanner;
 import com.github.born2snipe.valtree.converter.ValueConverter;
-import com.github.born2snipe.valtree.converter.Vector2Converter;
-import com.github.born2snipe.valtree.converter.Vector3Converter;
+import com.github.born2snipe.valtree.converter.ValueConverterRegistry;
 
-import java.io.BufferedOutputStream;
-import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractList;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
 
 public class ValTree implements Iterable<ValTree> {
-    private static final ObjectMap<Class, ValueConverter> converters = new ObjectMap<Class, ValueConverter>();
+    private static final int PARALLEL_MIN_CHUNK_SIZE = 64 * 1024;
+    private static final int LONG_PARSED = 1;
+    private static final int LONG_VALID = 1 << 1;
+    private static final int FLOAT_PARSED = 1 << 2;
+    private static final int FLOAT_VALID = 1 << 3;
+    private static final int DOUBLE_PARSED = 1 << 4;
+    private static final int DOUBLE_VALID = 1 << 5;
+    private static final long HASH_PRIME = 0x100000001b3L;
+    private static final long NULL_HASH = 0x9e3779b97f4a7c15L;
 
-    static {
-        registerConverter(String.class, new StringConverter());
-        registerConverter(Float.class, new FloatConverter());
-        registerConverter(Integer.class, new IntegerConverter());
-        registerConverter(Vector2.class, new Vector2Converter());
-        registerConverter(Vector3.class, new Vector3Converter());
-    }
-
-    private ObjectMap<String, ValTree> children = new OrderedMap<String, ValTree>();
+    private final ObjectMap<String, ValTree> children = new ObjectMap<String, ValTree>();
+    private final Array<ValTree> childList = new Array<ValTree>(true, 4, ValTree.class);
+    private List<ValTree> childrenView;
+    private PendingChildren pendingChildren;
     private ValTree parent;
+    private PathIndex pathIndex;
+    private int pathHash;
+    private Object reparseToken;
     private String key;
     private String value;
-    private Float floatValue;
-    private Integer intValue;
-    private int depth;
+    private int parsed;
+    private long longValue;
+    private float floatValue;
+    private double doubleValue;
+    private Converted converted;
+    private ValueConverterRegistry converters;
+    private SavedFile savedFile;
+    private long structuralHash;
+    private boolean hashed;
+    private boolean dirty;
+    private long spanOffset = -1;
+    private long spanLength;
 
     public ValTree() {
     }
@@ -52,11 +77,43 @@ public class ValTree implements Iterable<ValTree> {
         this.value = value;
     }
 
+    /**
+     * Registers the converter with the global {@link ValueConverterRegistry}, it is also used for sub classes.
+     */
     public static void registerConverter(Class clazz, ValueConverter converter) {
-        converters.put(clazz, converter);
+        ValueConverterRegistry.global().register(clazz, converter);
+    }
+
+    /**
+     * Converts the values of this tree, and everything below it now or later, with the registry instead of the
+     * global one.
+     */
+    public void setConverters(ValueConverterRegistry converters) {
+        this.converters = converters;
+        this.converted = null;
+        for (int i = 0; i < childList.size; i++) {
+            childList.get(i).setConverters(converters);
+        }
+    }
+
+    /**
+     * @return the registry the values of this tree are converted with
+     */
+    public ValueConverterRegistry getConverters() {
+        return converters != null ? converters : ValueConverterRegistry.global();
     }
 
+    /**
+     * Files on the file system are memory mapped and read as UTF-8, see {@link #parse(File)}.
+     * Everything else (classpath and internal files) is read through {@link #parse(InputStream)}.
+     */
     public void parse(FileHandle file) {
+        FileType type = file.type();
+        if (type == FileType.Absolute || type == FileType.External || type == FileType.Local) {
+            parse(file.file());
+            return;
+        }
+
         InputStream input = null;
         try {
             input = file.read(1024);
@@ -66,95 +123,478 @@ public class ValTree implements Iterable<ValTree> {
         }
     }
 
+    /**
+     * Memory maps the file and parses the UTF-8 encoded bytes directly, a compressed file is parsed while it is
+     * decompressed.
+     */
+    public void parse(File file) {
+        parse(new ValTreeReader(file));
+    }
+
+    /**
+     * Memory maps the file and parses the UTF-8 encoded bytes directly, repeated keys and short values share
+     * the instances in the pool.
+     */
+    public void parse(File file, StringPool pool) {
+        ValTreeReader reader = new ValTreeReader(file);
+        reader.setStringPool(pool);
+        parse(reader);
+    }
+
+    /**
+     * Memory maps the whole channel and parses the UTF-8 encoded bytes directly. The channel is left open.
+     */
+    public void parse(FileChannel channel) {
+        try {
+            parse(new ValTreeReader(new ByteLineScanner(ByteLineScanner.map(channel))));
+        } catch (IOException e) {
+            throw new ProblemReadingFileException(e);
+        }
+    }
+
+    /**
+     * Parses the UTF-8 encoded stream, a GZIP or DEFLATE compressed stream is detected and decompressed straight
+     * into the buffer of the parser, see {@link Compression}.
+     */
     public void parse(InputStream inputStream) {
-        BufferedReader reader = null;
+        parse(new ValTreeReader(inputStream));
+    }
+
+    /**
+     * Repeated keys and short values share the instances in the pool.
+     */
+    public void parse(InputStream inputStream, StringPool pool) {
+        ValTreeReader reader = new ValTreeReader(inputStream);
+        reader.setStringPool(pool);
+        parse(reader);
+    }
+
+    /**
+     * Builds the tree from every event of the reader and closes it.
+     */
+    public void parse(ValTreeReader reader) {
         try {
             clear();
-            Array<ValTree> parentStack = new Array<ValTree>();
-            parentStack.add(this);
+            ValTree current = this;
+            ValTreeReader.Event event;
+            while ((event = reader.next()) != ValTreeReader.Event.END_DOCUMENT) {
+                if (event == ValTreeReader.Event.START_NODE) {
+                    ValTree child = new ValTree(reader.getKey(), reader.getValue());
+                    current.addChild(child);
+                    current = child;
+                } else {
+                    current = current.parent;
+                }
+            }
+            markClean();
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Indexes the file and only builds the nodes that are reached, see {@link #parseLazy(ByteBuffer)}.
+     * Classpath and internal files are read into memory first.
+     */
+    public void parseLazy(FileHandle file) {
+        FileType type = file.type();
+        if (type == FileType.Absolute || type == FileType.External || type == FileType.Local) {
+            parseLazy(file.file());
+        } else {
+            parseLazy(ByteBuffer.wrap(file.readBytes()));
+        }
+    }
 
-            reader = new BufferedReader(new InputStreamReader(inputStream));
-            String line = null;
+    /**
+     * Memory maps the file and only builds the nodes that are reached, see {@link #parseLazy(ByteBuffer)}.
+     * A compressed file is decompressed into memory first.
+     */
+    public void parseLazy(File file) {
+        parseLazy(ByteLineScanner.load(file));
+    }
 
-            while ((line = reader.readLine()) != null) {
-                line = line.replaceAll("//.+", "");
+    /**
+     * Reads the whole stream into memory, decompressing it when it is compressed, and only builds the nodes that
+     * are reached, see {@link #parseLazy(ByteBuffer)}.
+     */
+    public void parseLazy(InputStream inputStream) {
+        try {
+            parseLazy(ByteBuffer.wrap(StreamUtils.copyStreamToByteArray(Compression.decompress(inputStream))));
+        } catch (IOException e) {
+            throw new ProblemReadingFileException(e);
+        } finally {
+            close(inputStream);
+        }
+    }
 
-                if (line.trim().length() == 0) {
-                    continue;
-                }
+    /**
+     * Parses the UTF-8 encoded content lazily. Only where every line starts and where its subtree ends is
+     * recorded up front, the children of a node are built the first time they are reached through
+     * {@link #getChild(String)}, {@link #query(String)}, {@link #iterator()}, {@link #getChildren()} and the like.
+     * <p>
+     * The content is referenced until every node is built and must not change in the meantime. Building the
+     * children of a node is not thread safe.
+     */
+    public void parseLazy(ByteBuffer content) {
+        parseLazy(content, null);
+    }
+
+    /**
+     * Parses the UTF-8 encoded content lazily, see {@link #parseLazy(ByteBuffer)}. Repeated keys and short values
+     * share the instances in the pool, the pool is used every time children are built.
+     */
+    public void parseLazy(ByteBuffer content, StringPool pool) {
+        clear();
+        LineIndex index = LineIndex.build(content, pool);
+        if (index.size() > 0) {
+            pendingChildren = new PendingChildren(index, 0, index.size());
+            if (pathIndex != null) {
+                pathIndex.lazy = true;
+            }
+        }
+        markClean();
+    }
 
-                ValTree child = new ValTree();
-                child.parseLine(line);
-                int childDepth = child.depth;
+    /**
+     * Memory maps the file and parses it in parallel, see {@link #parseParallel(ByteBuffer, Executor)}.
+     * A thread per available processor is used for the duration of the parse.
+     */
+    public void parseParallel(File file) {
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            parseParallel(file, executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
 
-                while (parentStack.size > 1) {
-                    ValTree currentParent = parentStack.peek();
-                    if (childDepth <= currentParent.depth) {
-                        parentStack.pop();
+    /**
+     * Memory maps the file and parses it in parallel, see {@link #parseParallel(ByteBuffer, Executor)}.
+     * A compressed file is decompressed into memory first.
+     */
+    public void parseParallel(File file, Executor executor) {
+        parseParallel(ByteLineScanner.load(file), executor);
+    }
+
+    /**
+     * Parses the UTF-8 encoded content by splitting it up at the top level nodes and parsing the pieces
+     * on the executor. The subtrees are added in their original order once every piece has been parsed,
+     * so the result is the same as {@link #parse(File)}.
+     */
+    public void parseParallel(ByteBuffer content, Executor executor) {
+        clear();
+        int start = content.position();
+        int end = content.limit();
+        IntArray topLevelOffsets = LineIndex.topLevelOffsets(content);
+        int chunkSize = Math.max(PARALLEL_MIN_CHUNK_SIZE, (end - start) / (Runtime.getRuntime().availableProcessors() * 4));
+
+        Array<FutureTask<ValTree>> chunks = new Array<FutureTask<ValTree>>();
+        int chunkStart = start;
+        for (int i = 1; i <= topLevelOffsets.size; i++) {
+            int chunkEnd = i < topLevelOffsets.size ? start + topLevelOffsets.get(i) : end;
+            if (chunkEnd - chunkStart >= chunkSize || chunkEnd == end) {
+                ByteBuffer chunk = content.duplicate();
+                chunk.limit(chunkEnd);
+                chunk.position(chunkStart);
+                chunks.add(new FutureTask<ValTree>(new ChunkParser(chunk)));
+                chunkStart = chunkEnd;
+            }
+        }
+
+        if (chunks.size == 1) {
+            chunks.first().run();
+        } else {
+            for (FutureTask<ValTree> chunk : chunks) {
+                executor.execute(chunk);
+            }
+        }
+
+        for (FutureTask<ValTree> chunk : chunks) {
+            for (ValTree child : waitFor(chunk)) {
+                addChild(child);
+            }
+        }
+        markClean();
+    }
+
+    /**
+     * Reconciles the tree with the stream, see {@link #reparse(ValTreeReader)}.
+     */
+    public ValTreeChanges reparse(InputStream inputStream) {
+        return reparse(new ValTreeReader(inputStream));
+    }
+
+    /**
+     * Memory maps the file and reconciles the tree with it, see {@link #reparse(ValTreeReader)}.
+     */
+    public ValTreeChanges reparse(File file) {
+        return reparse(new ValTreeReader(file));
+    }
+
+    /**
+     * Updates the tree to match the document instead of rebuilding it like {@link #parse(ValTreeReader)} does.
+     * <p>
+     * Nodes are matched by their key path. Matched nodes are kept, so references to them stay valid, and only
+     * get their value replaced when it differs. Nodes that are no longer in the document are removed and new
+     * ones are added. The children end up in document order.
+     *
+     * @return the paths that were added, removed or changed
+     */
+    public ValTreeChanges reparse(ValTreeReader reader) {
+        ValTreeChanges changes = new ValTreeChanges();
+        Object token = new Object();
+        Array<Array<ValTree>> visitedStack = new Array<Array<ValTree>>();
+        Array<Array<ValTree>> spareVisited = new Array<Array<ValTree>>();
+        visitedStack.add(new Array<ValTree>());
+        ValTree current = this;
+        int addedDepth = 0;
+
+        try {
+            ValTreeReader.Event event;
+            while ((event = reader.next()) != ValTreeReader.Event.END_DOCUMENT) {
+                if (event == ValTreeReader.Event.START_NODE) {
+                    Array<ValTree> visited = visitedStack.peek();
+                    String childKey = reader.getKey();
+                    String childValue = reader.getValue();
+                    ValTree existing = current.children().get(childKey);
+                    ValTree child;
+
+                    if (existing == null) {
+                        child = new ValTree(childKey, childValue);
+                        current.addChild(child);
+                        visited.add(child);
+                        if (addedDepth == 0) {
+                            changes.getAdded().add(child.pathFrom(this));
+                        }
+                        addedDepth++;
+                    } else if (existing.reparseToken == token) {
+                        child = new ValTree(childKey, childValue);
+                        current.addChild(child);
+                        visited.set(visited.indexOf(existing, true), child);
+                        if (addedDepth == 0) {
+                            changes.getChanged().add(child.pathFrom(this));
+                        }
+                        addedDepth++;
                     } else {
-                        break;
+                        child = existing;
+                        visited.add(child);
+                        if (childValue == null ? child.value != null : !childValue.equals(child.value)) {
+                            child.changeValue(childValue);
+                            changes.getChanged().add(child.pathFrom(this));
+                        }
                     }
-                }
 
-                ValTree parent = parentStack.peek();
-                child.parent = parent;
-                parent.addChild(child);
-                parentStack.add(child);
+                    child.reparseToken = token;
+                    visitedStack.add(spareVisited.size > 0 ? spareVisited.pop() : new Array<ValTree>());
+                    current = child;
+                } else {
+                    Array<ValTree> visited = visitedStack.pop();
+                    current.reconcileChildren(this, visited, token, changes);
+                    visited.clear();
+                    spareVisited.add(visited);
+                    if (addedDepth > 0) {
+                        addedDepth--;
+                    }
+                    current = current.parent;
+                }
             }
-        } catch (IOException e) {
-            throw new ProblemReadingFileException(e);
+            reconcileChildren(this, visitedStack.pop(), token, changes);
         } finally {
-            close(reader);
+            reader.close();
         }
+        return changes;
     }
 
     public void parseData(String content) {
-        parse(new ByteArrayInputStream(content.getBytes()));
+        parse(new ByteArrayInputStream(content.getBytes(ByteLineScanner.UTF_8)));
     }
 
+    /**
+     * @return a copy of the children of the parent, this tree included; see {@link #getSiblingsView()} to avoid the copy
+     */
     public Array<ValTree> getSiblings() {
         if (parent == null) {
             return new Array<ValTree>(0);
         }
-        return parent.children.values().toArray();
+        return parent.getChildren();
     }
 
+    /**
+     * @return a copy of the children; see {@link #getChildrenView()} to avoid the copy
+     */
     public Array<ValTree> getChildren() {
-        return children.values().toArray();
+        return new Array<ValTree>(childList());
+    }
+
+    /**
+     * @return a read-only list that always reflects the current children; the same instance is returned every time
+     */
+    public List<ValTree> getChildrenView() {
+        if (childrenView == null) {
+            childrenView = new ChildrenView(this);
+        }
+        return childrenView;
+    }
+
+    /**
+     * @return the read-only children view of the parent, this tree included
+     */
+    public List<ValTree> getSiblingsView() {
+        if (parent == null) {
+            return Collections.emptyList();
+        }
+        return parent.getChildrenView();
+    }
+
+    public int childCount() {
+        return childList().size;
+    }
+
+    /**
+     * @throws IndexOutOfBoundsException when there is no child at the index
+     */
+    public ValTree childAt(int index) {
+        return childList().get(index);
     }
 
     public ValTree getChild(String key) {
-        return children.get(key);
+        return children().get(key);
     }
 
     public String getString() {
         return value;
     }
 
+    /**
+     * @throws NumberFormatException when the value is not a whole number that fits in an int
+     */
     public Integer getInteger() {
-        if (intValue == null && value != null) {
-            intValue = getValueAs(Integer.class);
+        if (isBlank()) {
+            return null;
+        }
+        if (!parseLong() || longValue != (int) longValue) {
+            throw new NumberFormatException("For input string: \"" + value + "\"");
         }
-        return intValue;
+        return (int) longValue;
     }
 
+    /**
+     * Reads the value without boxing, the number is parsed once and kept until the value changes.
+     *
+     * @return the default when there is no value or it is not a whole number that fits in an int
+     */
+    public int getInt(int defaultValue) {
+        return parseLong() && longValue == (int) longValue ? (int) longValue : defaultValue;
+    }
+
+    /**
+     * @return the default when there is no value or it is not a whole number that fits in a long
+     */
+    public long getLong(long defaultValue) {
+        return parseLong() ? longValue : defaultValue;
+    }
+
+    /**
+     * @return the default when there is no value or it is not a number
+     */
+    public float getFloat(float defaultValue) {
+        return parseFloat() ? floatValue : defaultValue;
+    }
+
+    /**
+     * @return the default when there is no value or it is not a number
+     */
+    public double getDouble(double defaultValue) {
+        return parseDouble() ? doubleValue : defaultValue;
+    }
+
+    /**
+     * @return true or false when the value is either of those, ignoring case, otherwise the default
+     */
+    public boolean getBoolean(boolean defaultValue) {
+        if ("true".equalsIgnoreCase(value)) {
+            return true;
+        }
+        if ("false".equalsIgnoreCase(value)) {
+            return false;
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Values of {@link ValueConverter#isCacheable() cacheable} converters are cached per type until the value
+     * changes, reading one again only costs what {@link ValueConverter#copyOf(Object)} does. Other converters
+     * convert on every read.
+     */
     public <T> T getValueAs(Class<T> expectedReturnType) {
-        return (T) findConverter(expectedReturnType).convertFromText(value);
+        return (T) converted(expectedReturnType, true);
+    }
+
+    /**
+     * Reads the value into the given vector, once the value has been converted this allocates nothing.
+     *
+     * @return the given vector, or null when the value is blank
+     */
+    public Vector2 getValueAs(Vector2 out) {
+        Vector2 value = (Vector2) converted(Vector2.class, false);
+        return value == null ? null : out.set(value);
+    }
+
+    /**
+     * Reads the value into the given vector, once the value has been converted this allocates nothing.
+     *
+     * @return the given vector, or null when the value is blank
+     */
+    public Vector3 getValueAs(Vector3 out) {
+        Vector3 value = (Vector3) converted(Vector3.class, false);
+        return value == null ? null : out.set(value);
+    }
+
+    /**
+     * Every cached conversion was made with the same version of the tree's registry, a new version drops them all.
+     *
+     * @param copy whether a cached value is copied before it is handed out
+     */
+    private Object converted(Class type, boolean copy) {
+        ValueConverterRegistry converters = getConverters();
+        int version = converters.getVersion();
+        Converted cached = this.converted;
+        if (cached != null && cached.version != version) {
+            cached = null;
+            this.converted = null;
+        }
+        for (Converted converted = cached; converted != null; converted = converted.next) {
+            if (converted.type == type) {
+                return copy ? converted.converter.copyOf(converted.value) : converted.value;
+            }
+        }
+
+        ValueConverter converter = converters.get(type);
+        Object result = converter.convertFromText(value);
+        if (!converter.isCacheable()) {
+            return result;
+        }
+        this.converted = new Converted(type, converter, result, cached, version);
+        return copy ? converter.copyOf(result) : result;
     }
 
     public void setValue(Object value) {
         if (value == null) {
-            this.value = null;
-            this.floatValue = null;
-            this.intValue = null;
+            changeValue(null);
         } else {
-            this.value = findConverter(value.getClass()).convertToText(value);
+            changeValue(getConverters().get(value.getClass()).convertToText(value));
         }
     }
 
+    /**
+     * @throws NumberFormatException when the value is not a number
+     */
     public Float getFloat() {
-        if (floatValue == null && value != null) {
-            floatValue = getValueAs(Float.class);
+        if (isBlank()) {
+            return null;
+        }
+        if (!parseFloat()) {
+            throw new NumberFormatException("For input string: \"" + value + "\"");
         }
         return floatValue;
     }
@@ -163,6 +603,97 @@ public class ValTree implements Iterable<ValTree> {
         return key;
     }
 
+    /**
+     * A 64 bit hash of the key, the value and the children in order. It is cached in every node of the subtree and
+     * dropped along the parent chain on change, so after the first call it takes constant time until something
+     * below the node changes. Trees with different hashes are never {@link #equals(Object) equal}.
+     */
+    public long getStructuralHash() {
+        if (!hashed) {
+            long hash = mix(hashOf(key)) * HASH_PRIME ^ hashOf(value);
+            Array<ValTree> childList = childList();
+            for (int i = 0; i < childList.size; i++) {
+                hash = hash * HASH_PRIME ^ childList.get(i).getStructuralHash();
+            }
+            structuralHash = mix(hash ^ childList.size);
+            hashed = true;
+        }
+        return structuralHash;
+    }
+
+    /**
+     * Compares only the {@link #getStructuralHash() structural hashes}, so once they are cached it takes constant
+     * time. This is the fast way to tell whether a tree changed. Different trees are only reported the same when
+     * their 64 bit hashes collide, use {@link #equals(Object)} where that must never happen.
+     */
+    public boolean hasSameStructure(ValTree other) {
+        return other != null && getStructuralHash() == other.getStructuralHash();
+    }
+
+    /**
+     * Trees are equal when their keys, their values and their children, in order, are. The cached
+     * {@link #getStructuralHash() hashes} are compared first, so trees that differ are told apart in constant time,
+     * while equal trees are compared node by node, which takes time linear in their size.
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof ValTree)) {
+            return false;
+        }
+        ValTree tree = (ValTree) other;
+        if (getStructuralHash() != tree.getStructuralHash()
+                || !equal(key, tree.key) || !equal(value, tree.value)) {
+            return false;
+        }
+        Array<ValTree> childList = childList();
+        Array<ValTree> otherChildList = tree.childList();
+        if (childList.size != otherChildList.size) {
+            return false;
+        }
+        for (int i = 0; i < childList.size; i++) {
+            if (!childList.get(i).equals(otherChildList.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        long hash = getStructuralHash();
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    private static boolean equal(String first, String second) {
+        return first == null ? second == null : first.equals(second);
+    }
+
+    /**
+     * FNV-1a over the characters, null hashes differently than the empty text.
+     */
+    private static long hashOf(String text) {
+        if (text == null) {
+            return NULL_HASH;
+        }
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            hash = (hash ^ text.charAt(i)) * HASH_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * The finalizer of MurmurHash3, it spreads every bit of the input over the whole hash.
+     */
+    private static long mix(long hash) {
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+
     @Override
     public String toString() {
         ByteArrayOutputStream output = new ByteArrayOutputStream();
@@ -176,17 +707,29 @@ public class ValTree implements Iterable<ValTree> {
     }
 
     public int size() {
-        return children.size;
+        return childList().size;
     }
 
     public void clear() {
         key = null;
         setValue(null);
+        pendingChildren = null;
+        if (pathIndex != null) {
+            if (pathIndex.root == this) {
+                pathIndex = new PathIndex(this);
+            } else {
+                pathIndex.removeChildren(this);
+            }
+        }
         children.clear();
+        childList.clear();
+        savedFile = null;
+        spanOffset = -1;
+        markChanged();
     }
 
     public boolean hasChildren() {
-        return children.size > 0;
+        return pendingChildren != null || childList.size > 0;
     }
 
     public String queryForString(String query) {
@@ -213,19 +756,177 @@ public class ValTree implements Iterable<ValTree> {
         return result.getFloat();
     }
 
+    public int queryForInt(String query, int defaultValue) {
+        ValTree result = query(query);
+        return result == null ? defaultValue : result.getInt(defaultValue);
+    }
+
+    public long queryForLong(String query, long defaultValue) {
+        ValTree result = query(query);
+        return result == null ? defaultValue : result.getLong(defaultValue);
+    }
+
+    public float queryForFloat(String query, float defaultValue) {
+        ValTree result = query(query);
+        return result == null ? defaultValue : result.getFloat(defaultValue);
+    }
+
+    public double queryForDouble(String query, double defaultValue) {
+        ValTree result = query(query);
+        return result == null ? defaultValue : result.getDouble(defaultValue);
+    }
+
+    public boolean queryForBoolean(String query, boolean defaultValue) {
+        ValTree result = query(query);
+        return result == null ? defaultValue : result.getBoolean(defaultValue);
+    }
+
+    public int queryForInt(ValTreePath query, int defaultValue) {
+        ValTree result = query(query);
+        return result == null ? defaultValue : result.getInt(defaultValue);
+    }
+
+    public long queryForLong(ValTreePath query, long defaultValue) {
+        ValTree result = query(query);
+        return result == null ? defaultValue : result.getLong(defaultValue);
+    }
+
+    public float queryForFloat(ValTreePath query, float defaultValue) {
+        ValTree result = query(query);
+        return result == null ? defaultValue : result.getFloat(defaultValue);
+    }
+
+    public double queryForDouble(ValTreePath query, double defaultValue) {
+        ValTree result = query(query);
+        return result == null ? defaultValue : result.getDouble(defaultValue);
+    }
+
+    public boolean queryForBoolean(ValTreePath query, boolean defaultValue) {
+        ValTree result = query(query);
+        return result == null ? defaultValue : result.getBoolean(defaultValue);
+    }
+
+    public String queryForString(ValTreePath query) {
+        ValTree result = query(query);
+        if (result == null) {
+            return null;
+        }
+        return result.getString();
+    }
+
+    public Integer queryForInteger(ValTreePath query) {
+        ValTree result = query(query);
+        if (result == null) {
+            return null;
+        }
+        return result.getInteger();
+    }
+
+    public Float queryForFloat(ValTreePath query) {
+        ValTree result = query(query);
+        if (result == null) {
+            return null;
+        }
+        return result.getFloat();
+    }
+
+    public <T> T queryFor(ValTreePath query, Class<T> expectedReturnType) {
+        ValTree result = query(query);
+        if (result == null) {
+            return null;
+        }
+        return result.getValueAs(expectedReturnType);
+    }
+
+    public Vector2 queryFor(ValTreePath query, Vector2 out) {
+        ValTree result = query(query);
+        if (result == null) {
+            return null;
+        }
+        return result.getValueAs(out);
+    }
+
+    public Vector3 queryFor(ValTreePath query, Vector3 out) {
+        ValTree result = query(query);
+        if (result == null) {
+            return null;
+        }
+        return result.getValueAs(out);
+    }
+
+    public ValTree query(ValTreePath query) {
+        String path = query.toString();
+        if (canUsePathIndex(path)) {
+            ValTree found = pathIndex.find(path);
+            if (found != null || !pathIndex.lazy) {
+                return found;
+            }
+        }
+
+        ValTree current = this;
+        for (int i = 0, size = query.size(); i < size; i++) {
+            current = current.children().get(query.segment(i));
+            if (current == null) {
+                return null;
+            }
+        }
+        return current;
+    }
+
     public ValTree query(String query) {
+        if (canUsePathIndex(query)) {
+            ValTree found = pathIndex.find(query);
+            if (found != null || !pathIndex.lazy) {
+                return found;
+            }
+        }
+
         String[] queryKeys = query.split("\\.");
         ValTree current = this;
         for (String queryKey : queryKeys) {
-            if (!current.children.containsKey(queryKey)) {
+            current = current.children().get(queryKey);
+            if (current == null) {
                 return null;
             }
-            current = current.children.get(queryKey);
         }
 
         return current;
     }
 
+    /**
+     * Resolves all the queries in one walk, see {@link ValTreeQueryBatch}.
+     *
+     * @return the node each query found, or null, in the same order as the queries
+     */
+    public ValTree[] queryAll(String... queries) {
+        return ValTreeQueryBatch.compile(queries).resolve(this);
+    }
+
+    /**
+     * Lazily finds every node matching the pattern, see {@link ValTreePattern}.
+     * <pre>
+     * for (ValTree health : tree.find("orc.*.health")) { ... }
+     * </pre>
+     */
+    public Iterable<ValTree> find(String pattern) {
+        return find(ValTreePattern.compile(pattern));
+    }
+
+    public Iterable<ValTree> find(ValTreePattern pattern) {
+        return pattern.matches(this);
+    }
+
+    /**
+     * Lazily finds every node matching the pattern and converts its value with the registered {@link ValueConverter}.
+     */
+    public <T> Iterable<T> find(String pattern, Class<T> expectedReturnType) {
+        return find(ValTreePattern.compile(pattern), expectedReturnType);
+    }
+
+    public <T> Iterable<T> find(ValTreePattern pattern, Class<T> expectedReturnType) {
+        return pattern.matches(this, expectedReturnType);
+    }
+
     public void addChild(String key) {
         addChild(key, null);
     }
@@ -260,12 +961,287 @@ public class ValTree implements Iterable<ValTree> {
 
     public void addChild(ValTree tree) {
         tree.parent = this;
-        children.put(tree.key, tree);
+        if (tree.converters != converters) {
+            tree.setConverters(converters);
+        }
+        children();
+        ValTree replaced = putChild(tree);
+        if (replaced != tree) {
+            tree.spanOffset = -1;
+            tree.savedFile = null;
+            markChanged();
+        }
+        if (pathIndex != null && replaced != tree) {
+            if (replaced != null) {
+                pathIndex.remove(replaced);
+            }
+            pathIndex.remove(tree);
+            pathIndex.add(tree);
+        }
+    }
+
+    /**
+     * Indexes every node below this one by its full dotted path, so {@link #query(String)} and the queryFor methods
+     * find a node with a single hash lookup no matter how deep it is. Only the hash of each path is kept.
+     * <p>
+     * The index is kept up to date by {@link #addChild(ValTree)}, {@link #set(String, Object)}, {@link #clear()}
+     * and {@link #reparse(ValTreeReader)}, and every parse rebuilds it as the nodes are added. Calling this before
+     * parsing is the cheapest way to get an index for the parsed tree.
+     */
+    public void buildPathIndex() {
+        pathIndex = new PathIndex(this);
+        pathIndex.lazy = pendingChildren != null;
+        for (int i = 0; i < childList.size; i++) {
+            pathIndex.add(childList.get(i));
+        }
+    }
+
+    public void dropPathIndex() {
+        if (hasPathIndex()) {
+            for (int i = 0; i < childList.size; i++) {
+                pathIndex.remove(childList.get(i));
+            }
+            pathIndex = null;
+        }
     }
 
+    public boolean hasPathIndex() {
+        return pathIndex != null && pathIndex.root == this;
+    }
+
+    /**
+     * Every call returns a new iterator, so loops over the same children can be nested. Use {@link #childAt(int)}
+     * and {@link #childCount()} where not even the iterator may be allocated.
+     */
     @Override
     public Iterator<ValTree> iterator() {
-        return children.values().iterator();
+        return new ChildIterator(this);
+    }
+
+    /**
+     * A child replacing one with the same key takes over its position.
+     */
+    private ValTree putChild(ValTree child) {
+        ValTree replaced = children.put(child.key, child);
+        if (replaced == null) {
+            childList.add(child);
+        } else if (replaced != child) {
+            childList.set(childList.indexOf(replaced, true), child);
+        }
+        return replaced;
+    }
+
+    private void removeChild(ValTree child) {
+        children.remove(child.key);
+        childList.removeValue(child, true);
+        markChanged();
+        if (pathIndex != null) {
+            pathIndex.remove(child);
+        }
+        child.parent = null;
+    }
+
+    private Array<ValTree> childList() {
+        children();
+        return childList;
+    }
+
+    private ObjectMap<String, ValTree> children() {
+        if (pendingChildren != null) {
+            PendingChildren pending = pendingChildren;
+            pendingChildren = null;
+            LineIndex index = pending.index;
+            int line = pending.firstLine;
+            while (line < pending.endLine) {
+                index.read(line);
+                ValTree child = new ValTree(index.key(), index.value());
+                int subtreeEnd = index.subtreeEnd(line);
+                if (subtreeEnd > line + 1) {
+                    child.pendingChildren = new PendingChildren(index, line + 1, subtreeEnd);
+                }
+                child.parent = this;
+                child.converters = converters;
+                ValTree replaced = putChild(child);
+                if (pathIndex != null) {
+                    if (replaced != null) {
+                        pathIndex.remove(replaced);
+                    }
+                    pathIndex.add(child);
+                }
+                line = subtreeEnd;
+            }
+        }
+        return children;
+    }
+
+    private void reconcileChildren(ValTree reparsed, Array<ValTree> visited, Object token, ValTreeChanges changes) {
+        Array<ValTree> childList = childList();
+        boolean inOrder = childList.size == visited.size;
+        for (int i = 0; inOrder && i < visited.size; i++) {
+            inOrder = childList.get(i) == visited.get(i);
+        }
+        if (inOrder) {
+            return;
+        }
+
+        markChanged();
+        for (int i = 0; i < childList.size; i++) {
+            ValTree child = childList.get(i);
+            if (child.reparseToken != token) {
+                changes.getRemoved().add(child.pathFrom(reparsed));
+                if (pathIndex != null) {
+                    pathIndex.remove(child);
+                }
+                child.parent = null;
+            }
+        }
+        children.clear();
+        childList.clear();
+        for (int i = 0; i < visited.size; i++) {
+            putChild(visited.get(i));
+        }
+    }
+
+    void cacheInteger(int value) {
+        longValue = value;
+        parsed |= LONG_PARSED | LONG_VALID;
+    }
+
+    void cacheFloat(float value) {
+        floatValue = value;
+        parsed |= FLOAT_PARSED | FLOAT_VALID;
+    }
+
+    /**
+     * Where the subtree was last written by {@link IncrementalSave}, relative to where the parent was written, or
+     * -1 when it was not.
+     */
+    long spanOffset() {
+        return spanOffset;
+    }
+
+    long spanLength() {
+        return spanLength;
+    }
+
+    /**
+     * The subtree was copied as it was, to a new place.
+     */
+    void moveSpan(long offset) {
+        spanOffset = offset;
+    }
+
+    /**
+     * The node was written again, its children have been taken care of already.
+     */
+    void saved(long offset, long length) {
+        spanOffset = offset;
+        spanLength = length;
+        dirty = false;
+    }
+
+    private void changeValue(String value) {
+        this.value = value;
+        this.parsed = 0;
+        this.converted = null;
+        markChanged();
+    }
+
+    /**
+     * Marks the node and its ancestors dirty and drops their cached hashes. Every ancestor of a dirty node is dirty
+     * as well and no ancestor of a node without a hash has one, so the walk up stops at the first node that is both.
+     */
+    private void markChanged() {
+        for (ValTree tree = this; tree != null && (!tree.dirty || tree.hashed); tree = tree.parent) {
+            tree.dirty = true;
+            tree.hashed = false;
+        }
+    }
+
+    /**
+     * Only dirty nodes can have dirty children, so clean subtrees are skipped.
+     */
+    private void markClean() {
+        if (dirty) {
+            dirty = false;
+            for (int i = 0; i < childList.size; i++) {
+                childList.get(i).markClean();
+            }
+        }
+    }
+
+    private boolean isBlank() {
+        return value == null || value.trim().length() == 0;
+    }
+
+    private boolean parseLong() {
+        if ((parsed & LONG_PARSED) == 0) {
+            parsed |= LONG_PARSED;
+            if (value != null) {
+                try {
+                    longValue = NumberScanner.scanLong(value, 0, value.length());
+                    parsed |= LONG_VALID;
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        }
+        return (parsed & LONG_VALID) != 0;
+    }
+
+    private boolean parseFloat() {
+        if ((parsed & FLOAT_PARSED) == 0) {
+            parsed |= FLOAT_PARSED;
+            if (value != null) {
+                try {
+                    floatValue = NumberScanner.scanFloat(value, 0, value.length());
+                    parsed |= FLOAT_VALID;
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        }
+        return (parsed & FLOAT_VALID) != 0;
+    }
+
+    private boolean parseDouble() {
+        if ((parsed & DOUBLE_PARSED) == 0) {
+            parsed |= DOUBLE_PARSED;
+            if (value != null) {
+                try {
+                    doubleValue = NumberScanner.scanDouble(value, 0, value.length());
+                    parsed |= DOUBLE_VALID;
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        }
+        return (parsed & DOUBLE_VALID) != 0;
+    }
+
+    /**
+     * Queries ending with a dot are left to the walk, split drops the trailing empty keys.
+     */
+    private boolean canUsePathIndex(String query) {
+        return pathIndex != null && pathIndex.root == this && !query.endsWith(".");
+    }
+
+    private String pathFrom(ValTree ancestor) {
+        if (parent == ancestor || parent == null) {
+            return key;
+        }
+        return parent.pathFrom(ancestor) + "." + key;
+    }
+
+    private ValTree waitFor(FutureTask<ValTree> chunk) {
+        try {
+            return chunk.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProblemReadingFileException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ProblemReadingFileException(e.getCause());
+        }
     }
 
     private void close(Closeable closeable) {
@@ -278,61 +1254,146 @@ public class ValTree implements Iterable<ValTree> {
         }
     }
 
-    private void parseLine(String line) {
-        depth = determineDepthOf(line);
-        String sanitized = line.trim().replaceFirst("\\s+", " ");
-        int firstSpaceIndex = sanitized.indexOf(' ');
-        if (firstSpaceIndex == -1) {
-            key = sanitized;
-        } else {
-            key = sanitized.substring(0, firstSpaceIndex);
-            value = sanitized.substring(firstSpaceIndex + 1);
-        }
-    }
-
-    private int determineDepthOf(String line) {
-        return line.replaceAll("\t", " ").replaceAll("(^\\s*).+$", "$1").length();
-    }
-
     public void set(String key, Object value) {
+        PathIndex index = parent == null ? null : parent.pathIndex;
+        if (index != null) {
+            index.remove(this);
+        }
         if (parent != null) {
-            parent.children.remove(this.key);
-            parent.children.put(key, this);
+            parent.children().remove(this.key);
+            parent.childList.removeValue(this, true);
         }
         this.key = key;
-        this.value = findConverter(value.getClass()).convertToText(value);
-        this.intValue = null;
-        this.floatValue = null;
+        if (parent != null) {
+            ValTree replaced = parent.putChild(this);
+            if (index != null) {
+                if (replaced != null) {
+                    index.remove(replaced);
+                }
+                index.add(this);
+            }
+        }
+        changeValue(getConverters().get(value.getClass()).convertToText(value));
     }
 
     public ValTree getFirstChild() {
-        if (hasChildren()) {
-            return children.values().iterator().next();
-        }
-        return null;
+        return getIndex(0);
     }
 
+    /**
+     * @return the child at the index, or null when there is none; see {@link #childAt(int)}
+     */
     public ValTree getIndex(int index) {
-        int i = 0;
-        for (ValTree valTree : this) {
-            if (i == index) {
-                return valTree;
-            }
-            i++;
+        Array<ValTree> childList = childList();
+        if (index < 0 || index >= childList.size) {
+            return null;
         }
-        return null;
+        return childList.get(index);
+    }
+
+    /**
+     * Creates a read-only snapshot of the tree as it is right now, changes made afterwards are not reflected in it.
+     */
+    public FrozenValTree freeze() {
+        return FrozenValTree.freeze(this);
     }
 
     public void save(OutputStream output) {
         save(output, ' ');
     }
 
+    /**
+     * Writes the tree as UTF-8 with '\n' line endings and closes the output, see {@link ValTreeSerializer} for
+     * other line endings or writing to a channel.
+     */
     public void save(OutputStream output, char padding) {
-        PrintStream printStream = new PrintStream(new BufferedOutputStream(output));
         try {
-            log(printStream, padding);
+            new ValTreeSerializer(padding, "\n").write(this, output);
+        } catch (IOException e) {
+            throw new ProblemReadingFileException(e);
         } finally {
-            printStream.close();
+            close(output);
+        }
+    }
+
+    /**
+     * Writes the tree compressed and closes the output, every parse method detects the compression by itself.
+     */
+    public void save(OutputStream output, Compression compression) {
+        OutputStream compressed = null;
+        try {
+            compressed = compression.compress(output);
+            new ValTreeSerializer().write(this, compressed);
+        } catch (IOException e) {
+            throw new ProblemReadingFileException(e);
+        } finally {
+            close(compressed != null ? compressed : output);
+        }
+    }
+
+    /**
+     * Saves the tree to the file, writing only what changed since the last time it was saved there.
+     * <p>
+     * The subtrees of nodes that are not {@link #isDirty() dirty} are copied from the file as they are, so the
+     * work done follows how much changed rather than how big the tree is. The whole tree is written when the
+     * tree was last saved somewhere else, was parsed since, or when the file was changed by someone else.
+     * The file is replaced once the new one has been written completely, with a space for padding and '\n'
+     * line endings.
+     *
+     * @throws IllegalStateException when the tree has a parent
+     */
+    public void saveIncremental(File file) {
+        if (parent != null) {
+            throw new IllegalStateException("Only a tree without a parent can be saved incrementally");
+        }
+        boolean incremental = savedFile != null && savedFile.matches(file);
+        if (incremental && !dirty) {
+            return;
+        }
+
+        savedFile = null;
+        try {
+            new IncrementalSave().write(this, file, incremental);
+        } catch (IOException e) {
+            throw new ProblemReadingFileException(e);
+        }
+        savedFile = new SavedFile(file);
+    }
+
+    /**
+     * @return true when this node or anything below it was changed, added or removed since the tree was parsed or
+     * last saved with {@link #saveIncremental(File)}
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Writes the tree in the compact binary format, see {@link #parseBinary(InputStream)}.
+     */
+    public void saveBinary(OutputStream output) {
+        try {
+            ValTreeBinary.write(this, output);
+        } catch (IOException e) {
+            throw new ProblemReadingFileException(e);
+        } finally {
+            close(output);
+        }
+    }
+
+    /**
+     * Reads a tree written by {@link #saveBinary(OutputStream)}. Keys and values are only decoded once no matter
+     * how often they repeat, and values that were stored as numbers come back with their int or float cached.
+     */
+    public void parseBinary(InputStream inputStream) {
+        try {
+            clear();
+            ValTreeBinary.read(this, inputStream);
+            markClean();
+        } catch (IOException e) {
+            throw new ProblemReadingFileException(e);
+        } finally {
+            close(inputStream);
         }
     }
 
@@ -342,8 +1403,8 @@ public class ValTree implements Iterable<ValTree> {
 
     public void log(PrintStream printStream, char padding) {
         try {
-            for (ValTree tree : getChildren()) {
-                saveTree(printStream, tree, 0, padding);
+            for (int i = 0; i < childCount(); i++) {
+                saveTree(printStream, childAt(i), 0, padding);
             }
         } finally {
             printStream.flush();
@@ -362,24 +1423,15 @@ public class ValTree implements Iterable<ValTree> {
         }
         printStream.println();
 
-        if (tree.hasChildren()) {
-            for (ValTree valTree : tree) {
-                saveTree(printStream, valTree, depth + 1, padding);
-            }
+        for (int i = 0; i < tree.childCount(); i++) {
+            saveTree(printStream, tree.childAt(i), depth + 1, padding);
         }
     }
 
     public void addChild(String key, Object value) {
-        addChild(key, findConverter(value.getClass()).convertToText(value));
+        addChild(key, getConverters().get(value.getClass()).convertToText(value));
     }
 
-    private ValueConverter findConverter(Class<?> clazz) {
-        ValueConverter converter = converters.get(clazz);
-        if (converter == null) {
-            throw new IllegalArgumentException("No registered ValueConverter found for type: " + clazz.getName());
-        }
-        return converter;
-    }
 
     public <T> T queryFor(String query, Class<T> expectedReturnType) {
         ValTree result = query(query);
@@ -389,7 +1441,284 @@ public class ValTree implements Iterable<ValTree> {
         return result.getValueAs(expectedReturnType);
     }
 
-    private class ProblemReadingFileException extends RuntimeException {
+    /**
+     * Reads the value found into the given vector, see {@link #getValueAs(Vector2)}.
+     *
+     * @return the given vector, or null when nothing was found or the value is blank
+     */
+    public Vector2 queryFor(String query, Vector2 out) {
+        ValTree result = query(query);
+        if (result == null) {
+            return null;
+        }
+        return result.getValueAs(out);
+    }
+
+    /**
+     * Reads the value found into the given vector, see {@link #getValueAs(Vector3)}.
+     *
+     * @return the given vector, or null when nothing was found or the value is blank
+     */
+    public Vector3 queryFor(String query, Vector3 out) {
+        ValTree result = query(query);
+        if (result == null) {
+            return null;
+        }
+        return result.getValueAs(out);
+    }
+
+    private static class ChunkParser implements Callable<ValTree> {
+        private final ByteBuffer chunk;
+
+        ChunkParser(ByteBuffer chunk) {
+            this.chunk = chunk;
+        }
+
+        @Override
+        public ValTree call() {
+            ValTree tree = new ValTree();
+            tree.parse(new ValTreeReader(new ByteLineScanner(chunk)));
+            return tree;
+        }
+    }
+
+    private static class ChildIterator implements Iterator<ValTree> {
+        private final ValTree tree;
+        private int next;
+
+        ChildIterator(ValTree tree) {
+            this.tree = tree;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < tree.childCount();
+        }
+
+        @Override
+        public ValTree next() {
+            if (next >= tree.childCount()) {
+                throw new NoSuchElementException();
+            }
+            return tree.childAt(next++);
+        }
+
+        @Override
+        public void remove() {
+            if (next == 0) {
+                throw new IllegalStateException();
+            }
+            tree.removeChild(tree.childAt(--next));
+        }
+    }
+
+    private static class ChildrenView extends AbstractList<ValTree> implements RandomAccess {
+        private final ValTree tree;
+
+        ChildrenView(ValTree tree) {
+            this.tree = tree;
+        }
+
+        @Override
+        public ValTree get(int index) {
+            return tree.childAt(index);
+        }
+
+        @Override
+        public int size() {
+            return tree.childCount();
+        }
+    }
+
+    private static class Converted {
+        final Class type;
+        final ValueConverter converter;
+        final Object value;
+        final Converted next;
+        final int version;
+
+        Converted(Class type, ValueConverter converter, Object value, Converted next, int version) {
+            this.type = type;
+            this.version = version;
+            this.converter = converter;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    private static class PendingChildren {
+        final LineIndex index;
+        final int firstLine;
+        final int endLine;
+
+        PendingChildren(LineIndex index, int firstLine, int endLine) {
+            this.index = index;
+            this.firstLine = firstLine;
+            this.endLine = endLine;
+        }
+    }
+
+    /**
+     * Finds the nodes below the root by the String hash of their full dotted path. The hash of a path is worked
+     * out from the hash of its parent's path, so the paths themselves are never built. A candidate is confirmed by
+     * comparing the query with the keys on the way back up to the root.
+     * <p>
+     * Keys that contain a dot can not be reached by a query, they and everything below them are left out.
+     */
+    private static class PathIndex {
+        final ValTree root;
+        boolean lazy;
+        private ValTree[] slots = new ValTree[64];
+        private int size;
+
+        PathIndex(ValTree root) {
+            this.root = root;
+        }
+
+        void add(ValTree tree) {
+            ValTree parent = tree.parent;
+            String key = tree.key;
+            if (parent.pathIndex != this || key.indexOf('.') >= 0) {
+                return;
+            }
+
+            int hash = key.hashCode();
+            if (parent != root) {
+                int scale = 1;
+                for (int i = 0; i < key.length(); i++) {
+                    scale *= 31;
+                }
+                hash += parent.pathHash * scale * 31 + '.' * scale;
+            }
+            tree.pathIndex = this;
+            tree.pathHash = hash;
+            insert(tree);
+
+            if (tree.pendingChildren != null) {
+                lazy = true;
+            }
+            for (int i = 0; i < tree.childList.size; i++) {
+                add(tree.childList.get(i));
+            }
+        }
+
+        void remove(ValTree tree) {
+            if (tree.pathIndex != this || tree == root) {
+                return;
+            }
+
+            int mask = slots.length - 1;
+            int index = slot(tree.pathHash, mask);
+            while (slots[index] != tree) {
+                index = (index + 1) & mask;
+            }
+            slots[index] = null;
+            size--;
+            ValTree moved;
+            while ((moved = slots[index = (index + 1) & mask]) != null) {
+                slots[index] = null;
+                size--;
+                insert(moved);
+            }
+
+            tree.pathIndex = null;
+            removeChildren(tree);
+        }
+
+        /**
+         * Leaves the tree itself in the index, so children added to it later are indexed again.
+         */
+        void removeChildren(ValTree tree) {
+            for (int i = 0; i < tree.childList.size; i++) {
+                remove(tree.childList.get(i));
+            }
+        }
+
+        ValTree find(String path) {
+            int hash = path.hashCode();
+            int mask = slots.length - 1;
+            ValTree candidate;
+            for (int index = slot(hash, mask); (candidate = slots[index]) != null; index = (index + 1) & mask) {
+                if (candidate.pathHash == hash && matches(candidate, path)) {
+                    return candidate;
+                }
+            }
+            return null;
+        }
+
+        private boolean matches(ValTree tree, String path) {
+            int end = path.length();
+            ValTree current = tree;
+            while (true) {
+                String key = keyOf(current);
+                int start = end - key.length();
+                if (start < 0 || !path.regionMatches(start, key, 0, key.length())) {
+                    return false;
+                }
+                current = current.parent;
+                if (current == root) {
+                    return start == 0;
+                }
+                if (start == 0 || path.charAt(start - 1) != '.') {
+                    return false;
+                }
+                end = start - 1;
+            }
+        }
+
+        /**
+         * A cleared node loses its key but is still held by its parent under it.
+         */
+        private String keyOf(ValTree tree) {
+            return tree.key != null ? tree.key : tree.parent.children.findKey(tree, true);
+        }
+
+        private void insert(ValTree tree) {
+            if ((size + 1) * 2 > slots.length) {
+                ValTree[] old = slots;
+                slots = new ValTree[old.length * 2];
+                size = 0;
+                for (ValTree existing : old) {
+                    if (existing != null) {
+                        insert(existing);
+                    }
+                }
+            }
+
+            int mask = slots.length - 1;
+            int index = slot(tree.pathHash, mask);
+            while (slots[index] != null) {
+                index = (index + 1) & mask;
+            }
+            slots[index] = tree;
+            size++;
+        }
+
+        private static int slot(int hash, int mask) {
+            return (hash ^ (hash >>> 16)) & mask;
+        }
+    }
+
+    /**
+     * The file a tree was last saved to by {@link #saveIncremental(File)}, as it was right after saving.
+     */
+    private static class SavedFile {
+        final File file;
+        final long length;
+        final long lastModified;
+
+        SavedFile(File file) {
+            this.file = file.getAbsoluteFile();
+            this.length = file.length();
+            this.lastModified = file.lastModified();
+        }
+
+        boolean matches(File file) {
+            return this.file.equals(file.getAbsoluteFile()) && length == file.length() && lastModified == file.lastModified();
+        }
+    }
+
+    static class ProblemReadingFileException extends RuntimeException {
         public ProblemReadingFileException(Throwable cause) {
             super("A problem occurred trying to read your file", cause);
         }
@@ -0,0 +1,197 @@
+package com.github.born2snipe.valtree;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectIntMap;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Compact binary encoding of a ValTree.
+ * <pre>
+ * magic      'V' 'T' 'B' version
+ * strings    varint count, then per string: varint UTF-8 byte length, bytes
+ * root       varint child count, then every child
+ * node       varint key string index, value, varint child count, then every child
+ * value      tag 0: no value
+ *            tag 1: varint string index
+ *            tag 2: zig-zag varint int, only used when the text is exactly how the int prints
+ *            tag 3: 4 byte float bits, only used when the text is exactly how the float prints
+ * </pre>
+ * Keys and values that repeat are stored once in the string table.
+ */
+class ValTreeBinary {
+    private static final byte[] MAGIC = {'V', 'T', 'B'};
+    private static final int VERSION = 1;
+    private static final int NO_VALUE = 0;
+    private static final int STRING_VALUE = 1;
+    private static final int INT_VALUE = 2;
+    private static final int FLOAT_VALUE = 3;
+
+    public static void write(ValTree tree, OutputStream outputStream) throws IOException {
+        ObjectIntMap<String> stringIds = new ObjectIntMap<String>();
+        Array<String> strings = new Array<String>();
+        collectStrings(tree, stringIds, strings);
+
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(outputStream));
+        output.write(MAGIC);
+        output.write(VERSION);
+        writeVarInt(output, strings.size);
+        for (String string : strings) {
+            byte[] bytes = string.getBytes(ByteLineScanner.UTF_8);
+            writeVarInt(output, bytes.length);
+            output.write(bytes);
+        }
+
+        writeChildren(output, tree, stringIds);
+        output.flush();
+    }
+
+    public static void read(ValTree tree, InputStream inputStream) throws IOException {
+        DataInputStream input = new DataInputStream(new BufferedInputStream(inputStream));
+        for (byte expected : MAGIC) {
+            if (input.readByte() != expected) {
+                throw new IOException("Not a binary ValTree");
+            }
+        }
+        int version = input.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary ValTree version: " + version);
+        }
+
+        String[] strings = new String[readVarInt(input)];
+        byte[] buffer = new byte[64];
+        for (int i = 0; i < strings.length; i++) {
+            int length = readVarInt(input);
+            if (buffer.length < length) {
+                buffer = new byte[Math.max(length, buffer.length * 2)];
+            }
+            input.readFully(buffer, 0, length);
+            strings[i] = new String(buffer, 0, length, ByteLineScanner.UTF_8);
+        }
+
+        readChildren(input, tree, strings);
+    }
+
+    private static void collectStrings(ValTree tree, ObjectIntMap<String> stringIds, Array<String> strings) {
+        for (ValTree child : tree) {
+            addString(child.getKey(), stringIds, strings);
+            String value = child.getString();
+            if (value != null && typeOf(value) == STRING_VALUE) {
+                addString(value, stringIds, strings);
+            }
+            collectStrings(child, stringIds, strings);
+        }
+    }
+
+    private static void addString(String string, ObjectIntMap<String> stringIds, Array<String> strings) {
+        if (!stringIds.containsKey(string)) {
+            stringIds.put(string, strings.size);
+            strings.add(string);
+        }
+    }
+
+    private static void writeChildren(DataOutputStream output, ValTree tree, ObjectIntMap<String> stringIds) throws IOException {
+        writeVarInt(output, tree.size());
+        for (ValTree child : tree) {
+            writeVarInt(output, stringIds.get(child.getKey(), -1));
+
+            String value = child.getString();
+            int type = value == null ? NO_VALUE : typeOf(value);
+            output.write(type);
+            if (type == STRING_VALUE) {
+                writeVarInt(output, stringIds.get(value, -1));
+            } else if (type == INT_VALUE) {
+                int number = Integer.parseInt(value);
+                writeVarInt(output, (number << 1) ^ (number >> 31));
+            } else if (type == FLOAT_VALUE) {
+                output.writeInt(Float.floatToRawIntBits(Float.parseFloat(value)));
+            }
+
+            writeChildren(output, child, stringIds);
+        }
+    }
+
+    private static void readChildren(DataInputStream input, ValTree tree, String[] strings) throws IOException {
+        int childCount = readVarInt(input);
+        for (int i = 0; i < childCount; i++) {
+            String key = strings[readVarInt(input)];
+            ValTree child;
+
+            int type = input.readUnsignedByte();
+            if (type == NO_VALUE) {
+                child = new ValTree(key, null);
+            } else if (type == STRING_VALUE) {
+                child = new ValTree(key, strings[readVarInt(input)]);
+            } else if (type == INT_VALUE) {
+                int zigZag = readVarInt(input);
+                int number = (zigZag >>> 1) ^ -(zigZag & 1);
+                child = new ValTree(key, Integer.toString(number));
+                child.cacheInteger(number);
+            } else if (type == FLOAT_VALUE) {
+                float number = Float.intBitsToFloat(input.readInt());
+                child = new ValTree(key, Float.toString(number));
+                child.cacheFloat(number);
+            } else {
+                throw new IOException("Unknown value type: " + type);
+            }
+
+            tree.addChild(child);
+            readChildren(input, child, strings);
+        }
+    }
+
+    private static int typeOf(String value) {
+        int length = value.length();
+        if (length == 0 || length > 16) {
+            return STRING_VALUE;
+        }
+
+        char first = value.charAt(0);
+        if ((first < '0' || first > '9') && first != '-') {
+            return STRING_VALUE;
+        }
+
+        try {
+            if (value.indexOf('.') < 0) {
+                if (Integer.toString(Integer.parseInt(value)).equals(value)) {
+                    return INT_VALUE;
+                }
+            } else if (Float.toString(Float.parseFloat(value)).equals(value)) {
+                return FLOAT_VALUE;
+            }
+        } catch (NumberFormatException e) {
+            return STRING_VALUE;
+        }
+        return STRING_VALUE;
+    }
+
+    private static void writeVarInt(DataOutputStream output, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            output.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.write(value);
+    }
+
+    private static int readVarInt(DataInputStream input) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = input.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+}
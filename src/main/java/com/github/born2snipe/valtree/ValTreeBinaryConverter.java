@@ -0,0 +1,68 @@
+package com.github.born2snipe.valtree;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Converts ValTree files between the text and binary format, meant to be run as part of a build.
+ * <pre>
+ * java -cp ... com.github.born2snipe.valtree.ValTreeBinaryConverter to-binary units.txt units.vtb
+ * java -cp ... com.github.born2snipe.valtree.ValTreeBinaryConverter to-text units.vtb units.txt
+ * </pre>
+ * Text files are read and written as UTF-8, with '\n' line endings.
+ */
+public class ValTreeBinaryConverter {
+    public static void main(String[] args) {
+        if (args.length != 3 || !("to-binary".equals(args[0]) || "to-text".equals(args[0]))) {
+            System.err.println("usage: ValTreeBinaryConverter (to-binary|to-text) <input> <output>");
+            System.exit(1);
+        }
+
+        File input = new File(args[1]);
+        File output = new File(args[2]);
+        if ("to-binary".equals(args[0])) {
+            toBinary(input, output);
+        } else {
+            toText(input, output);
+        }
+    }
+
+    public static void toBinary(File textFile, File binaryFile) {
+        ValTree tree = new ValTree();
+        tree.parse(textFile);
+        tree.saveBinary(openForWriting(binaryFile));
+    }
+
+    public static void toText(File binaryFile, File textFile) {
+        ValTree tree = new ValTree();
+        try {
+            tree.parseBinary(new FileInputStream(binaryFile));
+        } catch (FileNotFoundException e) {
+            throw new ValTree.ProblemReadingFileException(e);
+        }
+
+        FileOutputStream output = openForWriting(textFile);
+        try {
+            new ValTreeSerializer().write(tree, output);
+        } catch (IOException e) {
+            throw new ValTree.ProblemReadingFileException(e);
+        } finally {
+            try {
+                output.close();
+            } catch (IOException e) {
+                throw new ValTree.ProblemReadingFileException(e);
+            }
+        }
+    }
+
+    private static FileOutputStream openForWriting(File file) {
+        try {
+            return new FileOutputStream(file);
+        } catch (FileNotFoundException e) {
+            throw new ValTree.ProblemReadingFileException(e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.born2snipe.valtree;
+
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * What {@link ValTree#reparse(ValTreeReader)} changed, as dotted key paths relative to the reparsed tree.
+ * <p>
+ * Added and removed subtrees are only reported by the path of their top most node.
+ */
+public class ValTreeChanges {
+    private final Array<String> added = new Array<String>();
+    private final Array<String> removed = new Array<String>();
+    private final Array<String> changed = new Array<String>();
+
+    public Array<String> getAdded() {
+        return added;
+    }
+
+    public Array<String> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * @return the paths of nodes that were kept but now have a different value or were replaced by a duplicate key
+     */
+    public Array<String> getChanged() {
+        return changed;
+    }
+
+    public boolean hasChanges() {
+        return added.size > 0 || removed.size > 0 || changed.size > 0;
+    }
+
+    @Override
+    public String toString() {
+        return "added=" + added + ", removed=" + removed + ", changed=" + changed;
+    }
+}
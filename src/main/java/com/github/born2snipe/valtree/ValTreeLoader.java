@@ -0,0 +1,69 @@
+package com.github.born2snipe.valtree;
+
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetLoaderParameters;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.AsynchronousAssetLoader;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Loads ValTree files through an {@link AssetManager}, parsing happens on the asset manager's executor.
+ * <pre>
+ * assetManager.setLoader(ValTree.class, new ValTreeLoader(new InternalFileHandleResolver()));
+ * assetManager.load("units.txt", ValTree.class);
+ * </pre>
+ */
+public class ValTreeLoader extends AsynchronousAssetLoader<ValTree, ValTreeLoader.ValTreeParameter> {
+    private ValTree tree;
+
+    public ValTreeLoader(FileHandleResolver resolver) {
+        super(resolver);
+    }
+
+    @Override
+    public void loadAsync(AssetManager manager, String fileName, FileHandle file, ValTreeParameter parameter) {
+        String charset = parameter == null ? null : parameter.charset;
+        boolean lazy = parameter != null && parameter.lazy;
+
+        tree = new ValTree();
+        if (lazy) {
+            if (charset == null || ByteLineScanner.UTF_8.name().equalsIgnoreCase(charset)) {
+                tree.parseLazy(file);
+            } else {
+                tree.parseLazy(ByteBuffer.wrap(file.readString(charset).getBytes(ByteLineScanner.UTF_8)));
+            }
+        } else if (charset == null) {
+            tree.parse(file);
+        } else {
+            tree.parse(new ValTreeReader(file.reader(charset)));
+        }
+    }
+
+    @Override
+    public ValTree loadSync(AssetManager manager, String fileName, FileHandle file, ValTreeParameter parameter) {
+        ValTree loaded = tree;
+        tree = null;
+        return loaded;
+    }
+
+    @Override
+    public Array<AssetDescriptor> getDependencies(String fileName, FileHandle file, ValTreeParameter parameter) {
+        return null;
+    }
+
+    public static class ValTreeParameter extends AssetLoaderParameters<ValTree> {
+        /**
+         * The charset of the file, null reads it the same way {@link ValTree#parse(FileHandle)} does.
+         */
+        public String charset;
+
+        /**
+         * Only build nodes when they are first reached, see {@link ValTree#parseLazy(ByteBuffer)}.
+         */
+        public boolean lazy;
+    }
+}
@@ -0,0 +1,591 @@
+package com.github.born2snipe.valtree;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.OrderedMap;
+import com.github.born2snipe.valtree.converter.ValueConverter;
+import com.github.born2snipe.valtree.converter.ValueConverterRegistry;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Copies trees into plain objects and back, a child is matched to the field with the same name.
+ * <pre>
+ * UnitStats grunt = ValTreeMapper.read(tree.query("orc.grunt"), UnitStats.class);
+ * ValTreeMapper.write(grunt, otherTree);
+ * </pre>
+ * <ul>
+ * <li>every field that is not static or transient is mapped, including the ones of super classes</li>
+ * <li>primitive fields are read and written without boxing, types with a registered {@link ValueConverter}
+ * are read and written through it</li>
+ * <li>{@link List}, {@link Array} and arrays take every child in order, they are written with their index as
+ * the key</li>
+ * <li>{@link Map} and {@link ObjectMap} take every child by key, the keys are Strings or have a converter</li>
+ * <li>anything else is a nested object that needs a no argument constructor, it may be private</li>
+ * </ul>
+ * Fields without a child are left as they are. Each class is looked at once, what was found out about its
+ * fields is kept for every later read and write. Whether a value goes through a converter is decided with the
+ * {@link ValTree#getConverters() registry} of the tree being read or written, so converters registered on a tree
+ * are used.
+ */
+public final class ValTreeMapper {
+    private static final ConcurrentHashMap<Class, ObjectMapping> mappings = new ConcurrentHashMap<Class, ObjectMapping>();
+
+    private ValTreeMapper() {
+    }
+
+    public static <T> T read(ValTree tree, Class<T> type) {
+        return (T) objectMapping(type).read(tree, null);
+    }
+
+    /**
+     * Fills in the fields of an existing object instead of creating a new one.
+     */
+    public static <T> T readInto(ValTree tree, T target) {
+        return (T) objectMapping(target.getClass()).read(tree, target);
+    }
+
+    /**
+     * Adds a child to the tree for every field that is not null, replacing any child that has the same key.
+     * Other children are left alone.
+     */
+    public static void write(Object source, ValTree tree) {
+        objectMapping(source.getClass()).write(source, tree);
+    }
+
+    /**
+     * The mappings of nested objects are only looked up once a value is read or written, so classes that refer to
+     * themselves work. Two threads can look at a class at the same time, the first mapping stored wins.
+     */
+    private static ObjectMapping objectMapping(Class type) {
+        ObjectMapping mapping = mappings.get(type);
+        if (mapping == null) {
+            mapping = new ObjectMapping(type, bindingsOf(type));
+            ObjectMapping existing = mappings.putIfAbsent(type, mapping);
+            if (existing != null) {
+                mapping = existing;
+            }
+        }
+        return mapping;
+    }
+
+    private static Binding[] bindingsOf(Class type) {
+        Array<Binding> bindings = new Array<Binding>(Binding.class);
+        for (Class current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) {
+                    continue;
+                }
+                field.setAccessible(true);
+                bindings.add(bindingFor(field));
+            }
+        }
+        return bindings.toArray();
+    }
+
+    private static Binding bindingFor(Field field) {
+        Class type = field.getType();
+        if (type == int.class) {
+            return new IntBinding(field);
+        } else if (type == long.class) {
+            return new LongBinding(field);
+        } else if (type == float.class) {
+            return new FloatBinding(field);
+        } else if (type == double.class) {
+            return new DoubleBinding(field);
+        } else if (type == boolean.class) {
+            return new BooleanBinding(field);
+        } else if (type == short.class || type == byte.class || type == char.class) {
+            return new SmallPrimitiveBinding(field);
+        }
+        return new ObjectBinding(field, mappingFor(field.getGenericType(), field));
+    }
+
+    private static Mapping mappingFor(Type type, Field field) {
+        Class raw = rawType(type, field);
+        if (raw.isPrimitive()) {
+            raw = boxed(raw);
+        }
+        try {
+            return new ValueMapping(raw, containerMappingFor(type, raw, field), null);
+        } catch (MappingException e) {
+            if (ValueConverterRegistry.global().find(raw) == null) {
+                throw e;
+            }
+            return new ValueMapping(raw, null, e);
+        }
+    }
+
+    /**
+     * @return null when the type is not a container
+     */
+    private static Mapping containerMappingFor(Type type, Class raw, Field field) {
+        if (raw.isArray()) {
+            Type element = type instanceof GenericArrayType ? ((GenericArrayType) type).getGenericComponentType() : raw.getComponentType();
+            return new ArrayMapping(rawType(element, field), mappingFor(element, field));
+        } else if (List.class.isAssignableFrom(raw) || Array.class.isAssignableFrom(raw)) {
+            return new ListMapping(raw, mappingFor(typeArgument(type, 0, field), field));
+        } else if (Map.class.isAssignableFrom(raw) || ObjectMap.class.isAssignableFrom(raw)) {
+            Class keyType = rawType(typeArgument(type, 0, field), field);
+            return new MapMapping(raw, keyType, mappingFor(typeArgument(type, 1, field), field));
+        }
+        return null;
+    }
+
+    private static Class rawType(Type type, Field field) {
+        if (type instanceof Class) {
+            return (Class) type;
+        } else if (type instanceof ParameterizedType) {
+            return (Class) ((ParameterizedType) type).getRawType();
+        } else if (type instanceof GenericArrayType) {
+            return java.lang.reflect.Array.newInstance(rawType(((GenericArrayType) type).getGenericComponentType(), field), 0).getClass();
+        }
+        throw new MappingException("The type of " + field + " is not concrete enough to be mapped", null);
+    }
+
+    /**
+     * Elements of primitive arrays go through the converter of their boxed type.
+     */
+    private static Class boxed(Class primitive) {
+        if (primitive == int.class) {
+            return Integer.class;
+        } else if (primitive == long.class) {
+            return Long.class;
+        } else if (primitive == float.class) {
+            return Float.class;
+        } else if (primitive == double.class) {
+            return Double.class;
+        } else if (primitive == boolean.class) {
+            return Boolean.class;
+        } else if (primitive == short.class) {
+            return Short.class;
+        } else if (primitive == byte.class) {
+            return Byte.class;
+        }
+        return Character.class;
+    }
+
+    private static Type typeArgument(Type type, int index, Field field) {
+        if (!(type instanceof ParameterizedType)) {
+            throw new MappingException("The element type of " + field + " has to be given", null);
+        }
+        return ((ParameterizedType) type).getActualTypeArguments()[index];
+    }
+
+    private static Object newInstance(Class type) {
+        try {
+            Constructor constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return constructor.newInstance();
+        } catch (Exception e) {
+            throw new MappingException("Unable to create an instance of " + type.getName(), e);
+        }
+    }
+
+    private static ValTree child(ValTree tree, String key) {
+        ValTree child = new ValTree(key, null);
+        tree.addChild(child);
+        return child;
+    }
+
+    public static class MappingException extends RuntimeException {
+        public MappingException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    /**
+     * Reads a value from a node and writes a value into a node.
+     */
+    private static abstract class Mapping {
+        /**
+         * @param existing the current value, it is filled in where possible instead of being replaced
+         */
+        abstract Object read(ValTree node, Object existing);
+
+        abstract void write(Object value, ValTree node);
+    }
+
+    /**
+     * Goes through the converter when the registry of the node has one for the type, otherwise the value is mapped
+     * as a container or as a nested object.
+     */
+    private static class ValueMapping extends Mapping {
+        private final Class type;
+        private final Mapping container;
+        private final MappingException problem;
+
+        /**
+         * @param problem why the type can not be mapped as a container. That only waits for a node without a
+         *                converter when the global registry has one, otherwise the class is rejected right away
+         */
+        ValueMapping(Class type, Mapping container, MappingException problem) {
+            this.type = type;
+            this.container = container;
+            this.problem = problem;
+        }
+
+        @Override
+        Object read(ValTree node, Object existing) {
+            if (node.getConverters().find(type) != null) {
+                return node.getValueAs(type);
+            }
+            return withoutConverter(node).read(node, existing);
+        }
+
+        @Override
+        void write(Object value, ValTree node) {
+            if (node.getConverters().find(type) != null) {
+                node.setValue(value);
+            } else {
+                withoutConverter(node).write(value, node);
+            }
+        }
+
+        private Mapping withoutConverter(ValTree node) {
+            if (problem != null) {
+                throw new MappingException(problem.getMessage(), problem);
+            }
+            if (container != null) {
+                return container;
+            }
+            if (type.getName().startsWith("java.")) {
+                node.getConverters().get(type);
+            }
+            return objectMapping(type);
+        }
+    }
+
+    private static class ObjectMapping extends Mapping {
+        private final Class type;
+        private final Binding[] bindings;
+
+        ObjectMapping(Class type, Binding[] bindings) {
+            this.type = type;
+            this.bindings = bindings;
+        }
+
+        @Override
+        Object read(ValTree node, Object existing) {
+            Object target = existing != null ? existing : newInstance(type);
+            try {
+                for (Binding binding : bindings) {
+                    ValTree child = node.getChild(binding.name);
+                    if (child != null) {
+                        binding.read(child, target);
+                    }
+                }
+            } catch (IllegalAccessException e) {
+                throw new MappingException("Unable to read into " + type.getName(), e);
+            }
+            return target;
+        }
+
+        @Override
+        void write(Object value, ValTree node) {
+            try {
+                for (Binding binding : bindings) {
+                    binding.write(value, node);
+                }
+            } catch (IllegalAccessException e) {
+                throw new MappingException("Unable to write " + type.getName(), e);
+            }
+        }
+    }
+
+    private static class ListMapping extends Mapping {
+        private final Class type;
+        private final Mapping element;
+
+        ListMapping(Class type, Mapping element) {
+            this.type = type;
+            this.element = element;
+        }
+
+        @Override
+        Object read(ValTree node, Object existing) {
+            if (Array.class.isAssignableFrom(type)) {
+                Array array = existing != null ? (Array) existing : type == Array.class ? new Array() : (Array) newInstance(type);
+                array.clear();
+                for (int i = 0; i < node.childCount(); i++) {
+                    array.add(element.read(node.childAt(i), null));
+                }
+                return array;
+            }
+
+            Collection list = existing != null ? (Collection) existing : type.isInterface() ? new ArrayList() : (Collection) newInstance(type);
+            list.clear();
+            for (int i = 0; i < node.childCount(); i++) {
+                list.add(element.read(node.childAt(i), null));
+            }
+            return list;
+        }
+
+        @Override
+        void write(Object value, ValTree node) {
+            int index = 0;
+            for (Object item : value instanceof Array ? (Array) value : (Iterable) value) {
+                if (item != null) {
+                    element.write(item, child(node, Integer.toString(index)));
+                }
+                index++;
+            }
+        }
+    }
+
+    private static class ArrayMapping extends Mapping {
+        private final Class componentType;
+        private final Mapping element;
+
+        ArrayMapping(Class componentType, Mapping element) {
+            this.componentType = componentType;
+            this.element = element;
+        }
+
+        @Override
+        Object read(ValTree node, Object existing) {
+            int size = node.childCount();
+            Object array = java.lang.reflect.Array.newInstance(componentType, size);
+            for (int i = 0; i < size; i++) {
+                Object item = element.read(node.childAt(i), null);
+                if (item != null || !componentType.isPrimitive()) {
+                    java.lang.reflect.Array.set(array, i, item);
+                }
+            }
+            return array;
+        }
+
+        @Override
+        void write(Object value, ValTree node) {
+            int size = java.lang.reflect.Array.getLength(value);
+            for (int i = 0; i < size; i++) {
+                Object item = java.lang.reflect.Array.get(value, i);
+                if (item != null) {
+                    element.write(item, child(node, Integer.toString(i)));
+                }
+            }
+        }
+    }
+
+    private static class MapMapping extends Mapping {
+        private final Class type;
+        private final Class keyType;
+        private final Mapping value;
+
+        MapMapping(Class type, Class keyType, Mapping value) {
+            this.type = type;
+            this.keyType = keyType;
+            this.value = value;
+        }
+
+        @Override
+        Object read(ValTree node, Object existing) {
+            if (ObjectMap.class.isAssignableFrom(type)) {
+                ObjectMap map = existing != null ? (ObjectMap) existing : type == ObjectMap.class ? new OrderedMap() : (ObjectMap) newInstance(type);
+                map.clear();
+                for (int i = 0; i < node.childCount(); i++) {
+                    ValTree child = node.childAt(i);
+                    map.put(key(child), value.read(child, null));
+                }
+                return map;
+            }
+
+            Map map = existing != null ? (Map) existing : type.isInterface() ? new LinkedHashMap() : (Map) newInstance(type);
+            map.clear();
+            for (int i = 0; i < node.childCount(); i++) {
+                ValTree child = node.childAt(i);
+                map.put(key(child), value.read(child, null));
+            }
+            return map;
+        }
+
+        @Override
+        void write(Object map, ValTree node) {
+            if (map instanceof ObjectMap) {
+                for (Object entry : ((ObjectMap) map).entries()) {
+                    ObjectMap.Entry e = (ObjectMap.Entry) entry;
+                    write(e.key, e.value, node);
+                }
+            } else {
+                for (Object entry : ((Map) map).entrySet()) {
+                    Map.Entry e = (Map.Entry) entry;
+                    write(e.getKey(), e.getValue(), node);
+                }
+            }
+        }
+
+        private void write(Object key, Object item, ValTree node) {
+            if (item != null) {
+                String text = keyType == String.class ? (String) key : node.getConverters().get(keyType).convertToText(key);
+                value.write(item, child(node, text));
+            }
+        }
+
+        private Object key(ValTree child) {
+            return keyType == String.class ? child.getKey() : child.getConverters().get(keyType).convertFromText(child.getKey());
+        }
+    }
+
+    /**
+     * Moves the value of a single field between an object and the child that has the field's name.
+     */
+    private static abstract class Binding {
+        final Field field;
+        final String name;
+
+        Binding(Field field) {
+            this.field = field;
+            this.name = field.getName();
+        }
+
+        abstract void read(ValTree child, Object target) throws IllegalAccessException;
+
+        abstract void write(Object source, ValTree tree) throws IllegalAccessException;
+    }
+
+    private static class IntBinding extends Binding {
+        IntBinding(Field field) {
+            super(field);
+        }
+
+        @Override
+        void read(ValTree child, Object target) throws IllegalAccessException {
+            field.setInt(target, child.getInt(field.getInt(target)));
+        }
+
+        @Override
+        void write(Object source, ValTree tree) throws IllegalAccessException {
+            tree.addChild(new ValTree(name, Integer.toString(field.getInt(source))));
+        }
+    }
+
+    private static class LongBinding extends Binding {
+        LongBinding(Field field) {
+            super(field);
+        }
+
+        @Override
+        void read(ValTree child, Object target) throws IllegalAccessException {
+            field.setLong(target, child.getLong(field.getLong(target)));
+        }
+
+        @Override
+        void write(Object source, ValTree tree) throws IllegalAccessException {
+            tree.addChild(new ValTree(name, Long.toString(field.getLong(source))));
+        }
+    }
+
+    private static class FloatBinding extends Binding {
+        FloatBinding(Field field) {
+            super(field);
+        }
+
+        @Override
+        void read(ValTree child, Object target) throws IllegalAccessException {
+            field.setFloat(target, child.getFloat(field.getFloat(target)));
+        }
+
+        @Override
+        void write(Object source, ValTree tree) throws IllegalAccessException {
+            tree.addChild(new ValTree(name, Float.toString(field.getFloat(source))));
+        }
+    }
+
+    private static class DoubleBinding extends Binding {
+        DoubleBinding(Field field) {
+            super(field);
+        }
+
+        @Override
+        void read(ValTree child, Object target) throws IllegalAccessException {
+            field.setDouble(target, child.getDouble(field.getDouble(target)));
+        }
+
+        @Override
+        void write(Object source, ValTree tree) throws IllegalAccessException {
+            tree.addChild(new ValTree(name, Double.toString(field.getDouble(source))));
+        }
+    }
+
+    private static class BooleanBinding extends Binding {
+        BooleanBinding(Field field) {
+            super(field);
+        }
+
+        @Override
+        void read(ValTree child, Object target) throws IllegalAccessException {
+            field.setBoolean(target, child.getBoolean(field.getBoolean(target)));
+        }
+
+        @Override
+        void write(Object source, ValTree tree) throws IllegalAccessException {
+            tree.addChild(new ValTree(name, Boolean.toString(field.getBoolean(source))));
+        }
+    }
+
+    /**
+     * short, byte and char fields, these are rare enough to share a binding.
+     */
+    private static class SmallPrimitiveBinding extends Binding {
+        SmallPrimitiveBinding(Field field) {
+            super(field);
+        }
+
+        @Override
+        void read(ValTree child, Object target) throws IllegalAccessException {
+            if (field.getType() == char.class) {
+                String value = child.getString();
+                if (value != null && value.length() == 1) {
+                    field.setChar(target, value.charAt(0));
+                }
+            } else if (field.getType() == short.class) {
+                field.setShort(target, (short) child.getInt(field.getShort(target)));
+            } else {
+                field.setByte(target, (byte) child.getInt(field.getByte(target)));
+            }
+        }
+
+        @Override
+        void write(Object source, ValTree tree) throws IllegalAccessException {
+            tree.addChild(new ValTree(name, String.valueOf(field.get(source))));
+        }
+    }
+
+    private static class ObjectBinding extends Binding {
+        private final Mapping mapping;
+
+        ObjectBinding(Field field, Mapping mapping) {
+            super(field);
+            this.mapping = mapping;
+        }
+
+        @Override
+        void read(ValTree child, Object target) throws IllegalAccessException {
+            Object existing = field.get(target);
+            Object value = mapping.read(child, existing);
+            if (value != existing) {
+                field.set(target, value);
+            }
+        }
+
+        @Override
+        void write(Object source, ValTree tree) throws IllegalAccessException {
+            Object value = field.get(source);
+            if (value != null) {
+                mapping.write(value, child(tree, name));
+            }
+        }
+    }
+}
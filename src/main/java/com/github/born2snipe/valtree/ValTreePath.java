@@ -0,0 +1,54 @@
+package com.github.born2snipe.valtree;
+
+/**
+ * A dotted query path that is split up once so it can be used for any number of lookups.
+ * <pre>
+ * private static final ValTreePath GRUNT_HEALTH = ValTreePath.compile("orc.grunt.health");
+ * ...
+ * Integer health = tree.queryForInteger(GRUNT_HEALTH);
+ * </pre>
+ * Looking up a compiled path does a single hash probe per segment and does not allocate.
+ */
+public final class ValTreePath {
+    private final String path;
+    private final String[] segments;
+
+    private ValTreePath(String path, String[] segments) {
+        this.path = path;
+        this.segments = segments;
+    }
+
+    /**
+     * Splits the path on its dots the same way {@link ValTree#query(String)} does.
+     */
+    public static ValTreePath compile(String path) {
+        String[] segments = path.split("\\.");
+        for (String segment : segments) {
+            segment.hashCode();
+        }
+        return new ValTreePath(path, segments);
+    }
+
+    public int size() {
+        return segments.length;
+    }
+
+    public String segment(int index) {
+        return segments[index];
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof ValTreePath && ((ValTreePath) other).path.equals(path);
+    }
+
+    @Override
+    public int hashCode() {
+        return path.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+}
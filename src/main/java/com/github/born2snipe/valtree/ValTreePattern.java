@@ -0,0 +1,217 @@
+package com.github.born2snipe.valtree;
+
+import com.badlogic.gdx.utils.Array;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A dotted query that can match many nodes.
+ * <ul>
+ * <li><code>*</code> matches any single key, <code>orc.*.health</code> is the health of every orc</li>
+ * <li><code>**</code> matches any number of keys, including none, <code>**.ability</code> is every ability at
+ * any depth</li>
+ * <li>anything else has to match the key exactly</li>
+ * </ul>
+ * The matches are found while they are iterated, only branches that can still match are walked and a node is
+ * returned once even when the pattern reaches it in several ways. Matches come in document order.
+ */
+public final class ValTreePattern {
+    private static final String ANY_KEY = "*";
+    private static final String ANY_KEYS = "**";
+
+    private final String pattern;
+    private final String[] segments;
+    private final int words;
+
+    private ValTreePattern(String pattern, String[] segments) {
+        this.pattern = pattern;
+        this.segments = segments;
+        this.words = segments.length / 64 + 1;
+    }
+
+    /**
+     * Splits the pattern on its dots the same way {@link ValTree#query(String)} does.
+     */
+    public static ValTreePattern compile(String pattern) {
+        return new ValTreePattern(pattern, pattern.split("\\."));
+    }
+
+    Iterable<ValTree> matches(final ValTree tree) {
+        return new Iterable<ValTree>() {
+            @Override
+            public Iterator<ValTree> iterator() {
+                return new Matches(tree);
+            }
+        };
+    }
+
+    <T> Iterable<T> matches(final ValTree tree, final Class<T> expectedReturnType) {
+        return new Iterable<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                final Matches matches = new Matches(tree);
+                return new Iterator<T>() {
+                    @Override
+                    public boolean hasNext() {
+                        return matches.hasNext();
+                    }
+
+                    @Override
+                    public T next() {
+                        return matches.next().getValueAs(expectedReturnType);
+                    }
+
+                    @Override
+                    public void remove() {
+                        matches.remove();
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof ValTreePattern && ((ValTreePattern) other).pattern.equals(pattern);
+    }
+
+    @Override
+    public int hashCode() {
+        return pattern.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+
+    /**
+     * Walks the tree depth first. Every node on the way keeps the set of pattern positions that are still
+     * possible after its key, position segments.length means the node matched.
+     */
+    private class Matches implements Iterator<ValTree> {
+        private final Array<Frame> frames = new Array<Frame>();
+        private int depth;
+        private ValTree next;
+
+        Matches(ValTree tree) {
+            Frame root = frame(0);
+            root.node = tree;
+            root.child = 0;
+            clear(root.states);
+            root.states[0] = 1;
+            closeOver(root.states);
+            depth = 1;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public ValTree next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            ValTree result = next;
+            advance();
+            return result;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Matches can not be removed");
+        }
+
+        private void advance() {
+            next = null;
+            while (depth > 0) {
+                Frame parent = frames.get(depth - 1);
+                if (parent.child >= parent.node.size()) {
+                    parent.node = null;
+                    depth--;
+                    continue;
+                }
+
+                ValTree child = parent.node.childAt(parent.child++);
+                Frame frame = frame(depth);
+                if (step(parent.states, child.getKey(), frame.states)) {
+                    frame.node = child;
+                    frame.child = 0;
+                    depth++;
+                    if (has(frame.states, segments.length)) {
+                        next = child;
+                        return;
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return false if nothing below the key can match anymore
+         */
+        private boolean step(long[] from, String key, long[] to) {
+            clear(to);
+            for (int i = 0; i < segments.length; i++) {
+                if (has(from, i)) {
+                    String segment = segments[i];
+                    if (segment.equals(ANY_KEYS)) {
+                        set(to, i);
+                    } else if (segment.equals(ANY_KEY) || segment.equals(key)) {
+                        set(to, i + 1);
+                    }
+                }
+            }
+            closeOver(to);
+
+            for (long word : to) {
+                if (word != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void closeOver(long[] states) {
+            for (int i = 0; i < segments.length; i++) {
+                if (has(states, i) && segments[i].equals(ANY_KEYS)) {
+                    set(states, i + 1);
+                }
+            }
+        }
+
+        private Frame frame(int depth) {
+            while (frames.size <= depth) {
+                frames.add(new Frame(words));
+            }
+            return frames.get(depth);
+        }
+    }
+
+    private static class Frame {
+        final long[] states;
+        ValTree node;
+        int child;
+
+        Frame(int words) {
+            states = new long[words];
+        }
+    }
+
+    private static boolean has(long[] states, int state) {
+        return (states[state >>> 6] & (1L << state)) != 0;
+    }
+
+    private static void set(long[] states, int state) {
+        states[state >>> 6] |= 1L << state;
+    }
+
+    private static void clear(long[] states) {
+        for (int i = 0; i < states.length; i++) {
+            states[i] = 0;
+        }
+    }
+}
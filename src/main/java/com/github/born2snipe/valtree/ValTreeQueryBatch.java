@@ -0,0 +1,97 @@
+package com.github.born2snipe.valtree;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * Resolves many dotted queries in a single walk of the tree.
+ * <p>
+ * The queries are merged into a trie up front, so a prefix they share like <code>orc.grunt</code> is only looked
+ * up once per {@link #resolve(ValTree)} no matter how many queries start with it. A batch can be kept around and
+ * resolved against any number of trees, also from several threads at once.
+ */
+public final class ValTreeQueryBatch {
+    private final Prefix root = new Prefix(null);
+    private final int size;
+
+    private ValTreeQueryBatch(String[] queries) {
+        size = queries.length;
+        for (int i = 0; i < queries.length; i++) {
+            Prefix prefix = root;
+            for (String key : queries[i].split("\\.")) {
+                prefix = prefix.child(key);
+            }
+            prefix.queries.add(i);
+        }
+    }
+
+    /**
+     * Splits every query on its dots the same way {@link ValTree#query(String)} does.
+     */
+    public static ValTreeQueryBatch compile(String... queries) {
+        return new ValTreeQueryBatch(queries);
+    }
+
+    /**
+     * @return how many queries are in the batch
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the node each query found, or null, in the same order as the queries were given
+     */
+    public ValTree[] resolve(ValTree tree) {
+        return resolve(tree, new ValTree[size]);
+    }
+
+    /**
+     * Fills in the results instead of allocating them, see {@link #resolve(ValTree)}.
+     */
+    public ValTree[] resolve(ValTree tree, ValTree[] results) {
+        if (results.length < size) {
+            throw new IllegalArgumentException("There is only room for " + results.length + " of the " + size + " results");
+        }
+        for (int i = 0; i < size; i++) {
+            results[i] = null;
+        }
+        resolve(root, tree, results);
+        return results;
+    }
+
+    private void resolve(Prefix prefix, ValTree tree, ValTree[] results) {
+        for (int i = 0; i < prefix.queries.size; i++) {
+            results[prefix.queries.get(i)] = tree;
+        }
+        Prefix[] children = prefix.children.items;
+        for (int i = 0; i < prefix.children.size; i++) {
+            Prefix child = children[i];
+            ValTree found = tree.getChild(child.key);
+            if (found != null) {
+                resolve(child, found, results);
+            }
+        }
+    }
+
+    private static class Prefix {
+        final String key;
+        final Array<Prefix> children = new Array<Prefix>(false, 2, Prefix.class);
+        final IntArray queries = new IntArray(1);
+
+        Prefix(String key) {
+            this.key = key;
+        }
+
+        Prefix child(String key) {
+            for (int i = 0; i < children.size; i++) {
+                if (children.get(i).key.equals(key)) {
+                    return children.get(i);
+                }
+            }
+            Prefix child = new Prefix(key);
+            children.add(child);
+            return child;
+        }
+    }
+}
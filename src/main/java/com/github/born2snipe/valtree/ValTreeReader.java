@@ -0,0 +1,194 @@
+package com.github.born2snipe.valtree;
+
+import com.badlogic.gdx.utils.IntArray;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+
+/**
+ * Pull style reader that walks a ValTree document without building a tree.
+ * <p>
+ * Every line produces a {@link Event#START_NODE} and every node is closed with an {@link Event#END_NODE} once
+ * a line at the same or a lower indentation shows up (or the document ends). Only the indentation of the
+ * currently open nodes is remembered so memory stays the same no matter how big the document is.
+ * <pre>
+ * ValTreeReader reader = new ValTreeReader(input);
+ * while (reader.next() != ValTreeReader.Event.END_DOCUMENT) {
+ *     if (reader.getEvent() == ValTreeReader.Event.START_NODE &amp;&amp; "health".equals(reader.getKey())) {
+ *         ...
+ *     }
+ * }
+ * </pre>
+ */
+public class ValTreeReader implements Closeable {
+    private final LineScanner scanner;
+    private final IntArray openIndentations = new IntArray();
+    private Event event;
+    private int depth;
+    private int pendingEnds;
+    private boolean pendingStart;
+    private boolean scannerFinished;
+    private String key;
+    private String value;
+    private boolean keyRead;
+    private boolean valueRead;
+
+    /**
+     * Reads the stream as UTF-8, the same way {@link ValTree#parse(InputStream)} does. A GZIP or DEFLATE
+     * compressed stream is decompressed straight into the buffer of the scanner, see {@link Compression}.
+     */
+    public ValTreeReader(InputStream input) {
+        this(new ByteLineScanner(decompress(input)));
+    }
+
+    public ValTreeReader(Reader reader) {
+        this(new TextLineScanner(reader));
+    }
+
+    /**
+     * Memory maps the file and reads it as UTF-8. A compressed file is streamed through the decompression instead.
+     */
+    public ValTreeReader(File file) {
+        this(scanner(file));
+    }
+
+    ValTreeReader(LineScanner scanner) {
+        this.scanner = scanner;
+    }
+
+    /**
+     * Keys, and values short enough for the pool, are taken from the pool instead of being created for every line.
+     */
+    public void setStringPool(StringPool pool) {
+        scanner.setStringPool(pool);
+    }
+
+    /**
+     * Advances to the next event.
+     *
+     * @return the new current event, {@link Event#END_DOCUMENT} once everything has been read
+     */
+    public Event next() {
+        keyRead = false;
+        valueRead = false;
+
+        if (pendingEnds == 0 && !pendingStart) {
+            readLine();
+        }
+
+        if (pendingEnds > 0) {
+            pendingEnds--;
+            openIndentations.pop();
+            depth = openIndentations.size;
+            event = Event.END_NODE;
+        } else if (pendingStart) {
+            pendingStart = false;
+            depth = openIndentations.size;
+            openIndentations.add(scanner.depth());
+            event = Event.START_NODE;
+        } else {
+            event = Event.END_DOCUMENT;
+        }
+        return event;
+    }
+
+    public Event getEvent() {
+        return event;
+    }
+
+    /**
+     * @return the key of the node that was just started, null for any other event
+     */
+    public String getKey() {
+        if (event != Event.START_NODE) {
+            return null;
+        }
+        if (!keyRead) {
+            key = scanner.key();
+            keyRead = true;
+        }
+        return key;
+    }
+
+    /**
+     * @return the value of the node that was just started, null when it has no value or for any other event
+     */
+    public String getValue() {
+        if (event != Event.START_NODE) {
+            return null;
+        }
+        if (!valueRead) {
+            value = scanner.value();
+            valueRead = true;
+        }
+        return value;
+    }
+
+    /**
+     * @return how many nodes enclose the node that was just started or ended, 0 for top level nodes
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    @Override
+    public void close() {
+        try {
+            scanner.close();
+        } catch (IOException e) {
+            throw new ValTree.ProblemReadingFileException(e);
+        }
+    }
+
+    private void readLine() {
+        if (scannerFinished) {
+            return;
+        }
+
+        try {
+            if (scanner.next()) {
+                int indentation = scanner.depth();
+                int open = openIndentations.size;
+                while (open > 0 && indentation <= openIndentations.get(open - 1)) {
+                    open--;
+                }
+                pendingEnds = openIndentations.size - open;
+                pendingStart = true;
+            } else {
+                scannerFinished = true;
+                pendingEnds = openIndentations.size;
+            }
+        } catch (IOException e) {
+            throw new ValTree.ProblemReadingFileException(e);
+        }
+    }
+
+    private static InputStream decompress(InputStream input) {
+        try {
+            return Compression.decompress(input);
+        } catch (IOException e) {
+            throw new ValTree.ProblemReadingFileException(e);
+        }
+    }
+
+    private static LineScanner scanner(File file) {
+        ByteBuffer content = ByteLineScanner.map(file);
+        if (ByteLineScanner.compressionOf(content) == Compression.NONE) {
+            return new ByteLineScanner(content);
+        }
+        try {
+            return new ByteLineScanner(decompress(new FileInputStream(file)));
+        } catch (IOException e) {
+            throw new ValTree.ProblemReadingFileException(e);
+        }
+    }
+
+    public enum Event {
+        START_NODE, END_NODE, END_DOCUMENT
+    }
+}
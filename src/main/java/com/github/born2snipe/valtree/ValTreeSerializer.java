@@ -0,0 +1,60 @@
+package com.github.born2snipe.valtree;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes a tree in the text format as UTF-8.
+ * <p>
+ * Everything is encoded into one byte buffer that is handed to the output whenever it fills up, and indentation
+ * is copied from a run of padding prepared up front instead of being written one character per level. The buffer
+ * is kept between writes, so a serializer can not be used by several threads at once.
+ */
+public class ValTreeSerializer {
+    private final TextOutput output;
+
+    /**
+     * Indents with a space and ends lines with '\n', like {@link ValTree#save(OutputStream)}.
+     */
+    public ValTreeSerializer() {
+        this(' ', "\n");
+    }
+
+    public ValTreeSerializer(char padding, String lineEnding) {
+        output = new TextOutput(padding, lineEnding);
+    }
+
+    /**
+     * Writes the children of the tree, the output is flushed but not closed.
+     */
+    public void write(ValTree tree, OutputStream output) throws IOException {
+        this.output.open(output);
+        write(tree);
+    }
+
+    /**
+     * Writes the children of the tree, the channel is not closed.
+     */
+    public void write(ValTree tree, WritableByteChannel output) throws IOException {
+        this.output.open(output);
+        write(tree);
+    }
+
+    private void write(ValTree tree) throws IOException {
+        try {
+            writeChildren(tree, 0);
+            output.flush();
+        } finally {
+            output.release();
+        }
+    }
+
+    private void writeChildren(ValTree tree, int depth) throws IOException {
+        for (int i = 0, count = tree.childCount(); i < count; i++) {
+            ValTree child = tree.childAt(i);
+            output.writeLine(depth, child.getKey(), child.getString());
+            writeChildren(child, depth + 1);
+        }
+    }
+}
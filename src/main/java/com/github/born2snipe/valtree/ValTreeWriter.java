@@ -0,0 +1,195 @@
+package com.github.born2snipe.valtree;
+
+import com.github.born2snipe.valtree.converter.ValueConverterRegistry;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Push style writer that produces a ValTree document without building a tree, the counterpart of
+ * {@link ValTreeReader}.
+ * <p>
+ * Lines are written as UTF-8 through a fixed size buffer and only the depth of the open node is remembered, so
+ * memory stays the same no matter how big the document gets.
+ * <p>
+ * Everything written reads back the same, so what the parser would change is rejected with an
+ * IllegalArgumentException: keys with white space or "//", and values that span lines, start or end with
+ * white space or contain a "//" comment.
+ * <pre>
+ * ValTreeWriter writer = new ValTreeWriter(output);
+ * writer.startNode("orc");
+ * writer.leaf("health", 100);
+ * writer.leaf("position", new Vector2(1, 2));
+ * writer.endNode();
+ * writer.close();
+ * </pre>
+ */
+public class ValTreeWriter implements Closeable {
+    private final TextOutput output;
+    private final Closeable closeable;
+    private ValueConverterRegistry converters = ValueConverterRegistry.global();
+    private int depth;
+
+    /**
+     * Indents with a space and ends lines with '\n', like {@link ValTree#save(OutputStream)}.
+     */
+    public ValTreeWriter(OutputStream output) {
+        this(output, ' ', "\n");
+    }
+
+    public ValTreeWriter(OutputStream output, char padding, String lineEnding) {
+        this.output = new TextOutput(padding, lineEnding);
+        this.output.open(output);
+        this.closeable = output;
+    }
+
+    public ValTreeWriter(WritableByteChannel output) {
+        this(output, ' ', "\n");
+    }
+
+    public ValTreeWriter(WritableByteChannel output, char padding, String lineEnding) {
+        this.output = new TextOutput(padding, lineEnding);
+        this.output.open(output);
+        this.closeable = output;
+    }
+
+    /**
+     * The registry values that are not strings are converted with, the global one unless told otherwise.
+     */
+    public void setConverters(ValueConverterRegistry converters) {
+        this.converters = converters;
+    }
+
+    /**
+     * Writes a node without a value, everything written until the matching {@link #endNode()} goes below it.
+     */
+    public ValTreeWriter startNode(String key) {
+        return startNode(key, (String) null);
+    }
+
+    public ValTreeWriter startNode(String key, String value) {
+        line(key, value);
+        depth++;
+        return this;
+    }
+
+    public ValTreeWriter startNode(String key, Object value) {
+        return startNode(key, toText(value));
+    }
+
+    /**
+     * @throws IllegalStateException when there is no open node
+     */
+    public ValTreeWriter endNode() {
+        if (depth == 0) {
+            throw new IllegalStateException("There is no node to end");
+        }
+        depth--;
+        return this;
+    }
+
+    public ValTreeWriter leaf(String key) {
+        return leaf(key, (String) null);
+    }
+
+    public ValTreeWriter leaf(String key, String value) {
+        line(key, value);
+        return this;
+    }
+
+    public ValTreeWriter leaf(String key, Object value) {
+        return leaf(key, toText(value));
+    }
+
+    public ValTreeWriter leaf(String key, int value) {
+        return leaf(key, String.valueOf(value));
+    }
+
+    public ValTreeWriter leaf(String key, long value) {
+        return leaf(key, String.valueOf(value));
+    }
+
+    public ValTreeWriter leaf(String key, float value) {
+        return leaf(key, String.valueOf(value));
+    }
+
+    public ValTreeWriter leaf(String key, double value) {
+        return leaf(key, String.valueOf(value));
+    }
+
+    public ValTreeWriter leaf(String key, boolean value) {
+        return leaf(key, String.valueOf(value));
+    }
+
+    /**
+     * @return how many nodes are open
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Hands everything written so far to the output.
+     */
+    public void flush() {
+        try {
+            output.flush();
+        } catch (IOException e) {
+            throw new ValTree.ProblemReadingFileException(e);
+        }
+    }
+
+    /**
+     * Flushes and closes the output, nodes that are still open need no ending in the text format.
+     */
+    public void close() {
+        try {
+            try {
+                output.flush();
+            } finally {
+                output.release();
+                closeable.close();
+            }
+        } catch (IOException e) {
+            throw new ValTree.ProblemReadingFileException(e);
+        }
+    }
+
+    private String toText(Object value) {
+        return value == null ? null : converters.get(value.getClass()).convertToText(value);
+    }
+
+    private void line(String key, String value) {
+        if (key == null || key.length() == 0) {
+            throw new IllegalArgumentException("A key can not be empty");
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (Character.isWhitespace(key.charAt(i))) {
+                throw new IllegalArgumentException("A key can not contain white space: " + key);
+            }
+        }
+        if (key.indexOf("//") >= 0) {
+            throw new IllegalArgumentException("A key can not contain a comment: " + key);
+        }
+        if (value != null && value.length() > 0) {
+            if (value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                throw new IllegalArgumentException("A value can not span lines: " + value);
+            }
+            if (value.charAt(0) <= ' ' || value.charAt(value.length() - 1) <= ' ') {
+                throw new IllegalArgumentException("A value can not start or end with white space: " + value);
+            }
+            int comment = value.indexOf("//");
+            if (comment >= 0 && comment + 2 < value.length()) {
+                throw new IllegalArgumentException("A value can not contain a comment: " + value);
+            }
+        }
+
+        try {
+            output.writeLine(depth, key, value);
+        } catch (IOException e) {
+            throw new ValTree.ProblemReadingFileException(e);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.github.born2snipe.valtree.converter;
+
+public class BooleanConverter extends ValueConverter<Boolean> {
+    @Override
+    protected Boolean fromText(String text) {
+        return Boolean.valueOf(text);
+    }
+
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+
+    @Override
+    protected String toText(Boolean value) {
+        return value.toString();
+    }
+}
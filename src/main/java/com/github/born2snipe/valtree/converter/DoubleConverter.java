@@ -0,0 +1,18 @@
+package com.github.born2snipe.valtree.converter;
+
+public class DoubleConverter extends ValueConverter<Double> {
+    @Override
+    protected Double fromText(String text) {
+        return Double.valueOf(text);
+    }
+
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+
+    @Override
+    protected String toText(Double value) {
+        return value.toString();
+    }
+}
@@ -17,6 +17,11 @@ public class EnumConverter extends ValueConverter<Object> {
         }
     }
 
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+
     @Override
     protected String toText(Object value) {
         Enum e = (Enum) value;
@@ -7,6 +7,11 @@ public class FloatConverter extends ValueConverter<Float> {
         return Float.valueOf(text);
     }
 
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+
     @Override
     protected String toText(Float value) {
         return value.toString();
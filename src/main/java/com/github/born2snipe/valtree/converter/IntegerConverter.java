@@ -6,6 +6,11 @@ public class IntegerConverter extends ValueConverter<Integer> {
         return Integer.valueOf(text);
     }
 
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+
     @Override
     protected String toText(Integer value) {
         return value.toString();
@@ -0,0 +1,18 @@
+package com.github.born2snipe.valtree.converter;
+
+public class LongConverter extends ValueConverter<Long> {
+    @Override
+    protected Long fromText(String text) {
+        return Long.valueOf(text);
+    }
+
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+
+    @Override
+    protected String toText(Long value) {
+        return value.toString();
+    }
+}
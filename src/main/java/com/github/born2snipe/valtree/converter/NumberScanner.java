@@ -0,0 +1,171 @@
+package com.github.born2snipe.valtree.converter;
+
+/**
+ * Reads numbers straight from a range of characters without creating a substring first.
+ * <p>
+ * Whole numbers are always read by hand. Decimal numbers are read by hand when the digits and the exponent are
+ * small enough for the result to be exact after a single multiplication or division, which covers the values
+ * found in most files. Anything else, like very long fractions, "NaN" or hex floats, is handed to
+ * {@link Double#parseDouble(String)} or {@link Float#parseFloat(String)}.
+ */
+public final class NumberScanner {
+    private static final double[] DOUBLE_POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final float[] FLOAT_POWERS_OF_TEN = {1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f};
+    private static final int MAX_DOUBLE_DIGITS = 15;
+    private static final int MAX_FLOAT_DIGITS = 7;
+
+    private NumberScanner() {
+    }
+
+    /**
+     * Reads an optionally signed whole number in the range, the same numbers {@link Long#parseLong(String)} reads.
+     *
+     * @throws NumberFormatException when the range is not a whole number or does not fit in a long
+     */
+    public static long scanLong(CharSequence text, int start, int end) {
+        int index = start;
+        boolean negative = false;
+        if (index < end && (text.charAt(index) == '-' || text.charAt(index) == '+')) {
+            negative = text.charAt(index) == '-';
+            index++;
+        }
+        if (index == end) {
+            throw invalid(text, start, end);
+        }
+
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long result = 0;
+        for (; index < end; index++) {
+            int digit = text.charAt(index) - '0';
+            if (digit < 0 || digit > 9 || result < limit / 10) {
+                throw invalid(text, start, end);
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw invalid(text, start, end);
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * @throws NumberFormatException when the range is not a whole number or does not fit in an int
+     */
+    public static int scanInt(CharSequence text, int start, int end) {
+        long result = scanLong(text, start, end);
+        if (result != (int) result) {
+            throw invalid(text, start, end);
+        }
+        return (int) result;
+    }
+
+    /**
+     * Reads a decimal number in the range, like "-12.5" or "3e-2", with the same result as
+     * {@link Double#parseDouble(String)}.
+     *
+     * @throws NumberFormatException when the range is not a number
+     */
+    public static double scanDouble(CharSequence text, int start, int end) {
+        return scanDecimal(text, start, end, false);
+    }
+
+    /**
+     * Reads a decimal number in the range, like "-12.5" or "3e-2", with the same result as
+     * {@link Float#parseFloat(String)}.
+     *
+     * @throws NumberFormatException when the range is not a number
+     */
+    public static float scanFloat(CharSequence text, int start, int end) {
+        return (float) scanDecimal(text, start, end, true);
+    }
+
+    private static NumberFormatException invalid(CharSequence text, int start, int end) {
+        return new NumberFormatException("For input string: \"" + text.subSequence(start, end) + "\"");
+    }
+
+    /**
+     * Reads the number as its significant digits times a power of ten, without allocating anything, and hands it
+     * to the JDK when it is not a plain decimal number or has too many digits to be exact.
+     *
+     * @param single true to round to a float, which a double holds exactly
+     */
+    private static double scanDecimal(CharSequence text, int start, int end, boolean single) {
+        int maxDigits = single ? MAX_FLOAT_DIGITS : MAX_DOUBLE_DIGITS;
+        int maxExponent = single ? FLOAT_POWERS_OF_TEN.length - 1 : DOUBLE_POWERS_OF_TEN.length - 1;
+        boolean negative = false;
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+
+        int index = start;
+        if (index < end && (text.charAt(index) == '-' || text.charAt(index) == '+')) {
+            negative = text.charAt(index) == '-';
+            index++;
+        }
+
+        boolean anyDigits = false;
+        boolean fraction = false;
+        boolean exact = true;
+        for (; index < end; index++) {
+            char c = text.charAt(index);
+            if (c == '.' && !fraction) {
+                fraction = true;
+                continue;
+            }
+            if (c < '0' || c > '9') {
+                break;
+            }
+            anyDigits = true;
+            if (fraction) {
+                exponent--;
+            }
+            if (digits == 0 && c == '0') {
+                continue;
+            }
+            if (++digits > maxDigits) {
+                exact = false;
+                break;
+            }
+            mantissa = mantissa * 10 + (c - '0');
+        }
+
+        if (exact && anyDigits && index < end && (text.charAt(index) == 'e' || text.charAt(index) == 'E')) {
+            int exponentStart = ++index;
+            if (index < end && (text.charAt(index) == '-' || text.charAt(index) == '+')) {
+                index++;
+            }
+            if (index == end || end - index > 3) {
+                exact = false;
+            }
+            for (; exact && index < end; index++) {
+                if (text.charAt(index) < '0' || text.charAt(index) > '9') {
+                    exact = false;
+                }
+            }
+            if (exact) {
+                exponent += (int) scanLong(text, exponentStart, end);
+            }
+        }
+
+        if (exact && anyDigits && index == end && Math.abs(exponent) <= maxExponent) {
+            double result;
+            if (single) {
+                result = exponent < 0
+                        ? mantissa / FLOAT_POWERS_OF_TEN[-exponent]
+                        : mantissa * FLOAT_POWERS_OF_TEN[exponent];
+            } else {
+                result = exponent < 0
+                        ? mantissa / DOUBLE_POWERS_OF_TEN[-exponent]
+                        : mantissa * DOUBLE_POWERS_OF_TEN[exponent];
+            }
+            return negative ? -result : result;
+        }
+
+        String number = text.subSequence(start, end).toString();
+        return single ? Float.parseFloat(number) : Double.parseDouble(number);
+    }
+}
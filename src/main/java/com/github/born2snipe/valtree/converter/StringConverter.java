@@ -6,6 +6,11 @@ public class StringConverter extends ValueConverter<String> {
         return text;
     }
 
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+
     @Override
     protected String toText(String value) {
         return value;
@@ -12,6 +12,22 @@ public abstract class ValueConverter<T> {
         return fromText(text);
     }
 
+    /**
+     * Whether the tree may keep a converted value and hand it out again on later reads, through
+     * {@link #copyOf(Object)}. Converters of immutable types, or ones whose copyOf copies, can say yes;
+     * values of every other converter are converted again on every read.
+     */
+    public boolean isCacheable() {
+        return false;
+    }
+
+    /**
+     * What every read of a cached value hands out, see {@link #isCacheable()}. Immutable values are returned as is.
+     */
+    public T copyOf(T value) {
+        return value;
+    }
+
     public String convertToText(T value) {
         if (value == null) {
             return "";
@@ -0,0 +1,182 @@
+package com.github.born2snipe.valtree.converter;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.math.Vector3;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Finds the {@link ValueConverter} for a type.
+ * <p>
+ * A type without a converter of its own uses the converter of its closest super class, or else of the first
+ * interface it implements. Enums without a converter get an {@link EnumConverter} automatically. A registry made
+ * for a tree falls back to its parent, the global registry unless told otherwise, for types it has no converter
+ * for at all.
+ * <p>
+ * What a type resolved to is cached, so looking a type up again is a single lock free read. Registries are
+ * thread safe, the cache of a registry starts over whenever a converter is registered with it or one of its
+ * parents.
+ */
+public class ValueConverterRegistry {
+    /**
+     * Cached for types without a converter, the cache can not hold null.
+     */
+    private static final ValueConverter NONE = new StringConverter();
+    private static final ValueConverterRegistry GLOBAL = new ValueConverterRegistry(null);
+
+    static {
+        GLOBAL.register(String.class, new StringConverter());
+        GLOBAL.register(Float.class, new FloatConverter());
+        GLOBAL.register(Integer.class, new IntegerConverter());
+        GLOBAL.register(Vector2.class, new Vector2Converter());
+        GLOBAL.register(Vector3.class, new Vector3Converter());
+        GLOBAL.register(Long.class, new LongConverter());
+        GLOBAL.register(Double.class, new DoubleConverter());
+        GLOBAL.register(Boolean.class, new BooleanConverter());
+    }
+
+    private final ValueConverterRegistry parent;
+    private final ConcurrentHashMap<Class, ValueConverter> registered = new ConcurrentHashMap<Class, ValueConverter>();
+    private final AtomicInteger registrations = new AtomicInteger();
+    private volatile Resolved resolved = new Resolved(-1);
+
+    /**
+     * A registry that falls back to the global one.
+     */
+    public ValueConverterRegistry() {
+        this(GLOBAL);
+    }
+
+    /**
+     * @param parent where types without a converter in this registry are looked up, may be null
+     */
+    public ValueConverterRegistry(ValueConverterRegistry parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * The registry used by every tree that was not given one of its own.
+     */
+    public static ValueConverterRegistry global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Changes every time a converter is registered with or removed from this registry or one of its parents, so
+     * anything derived from a lookup knows when to look again.
+     */
+    public int getVersion() {
+        int version = registrations.get();
+        return parent == null ? version : version + parent.getVersion();
+    }
+
+    public void register(Class type, ValueConverter converter) {
+        registered.put(type, converter);
+        registrations.incrementAndGet();
+    }
+
+    /**
+     * Removes the converter registered for exactly this type, it resolves again as if it was never registered.
+     */
+    public void unregister(Class type) {
+        registered.remove(type);
+        registrations.incrementAndGet();
+    }
+
+    /**
+     * @return the converter for the type, or null when there is none
+     */
+    public ValueConverter find(Class type) {
+        int version = getVersion();
+        Resolved resolved = this.resolved;
+        if (resolved.version != version) {
+            resolved = new Resolved(version);
+            this.resolved = resolved;
+        }
+
+        ValueConverter converter = resolved.converters.get(type);
+        if (converter == null) {
+            converter = resolve(type);
+            resolved.converters.put(type, converter == null ? NONE : converter);
+        }
+        return converter == NONE ? null : converter;
+    }
+
+    /**
+     * @throws IllegalArgumentException when there is no converter for the type
+     */
+    public ValueConverter get(Class type) {
+        ValueConverter converter = find(type);
+        if (converter == null) {
+            throw new IllegalArgumentException("No registered ValueConverter found for type: " + type.getName());
+        }
+        return converter;
+    }
+
+    private ValueConverter resolve(Class type) {
+        for (Class current = type; current != null; current = current.getSuperclass()) {
+            ValueConverter converter = registered.get(current);
+            if (converter != null) {
+                return converter;
+            }
+        }
+
+        List<Class> interfaces = new ArrayList<Class>();
+        for (Class current = type; current != null; current = current.getSuperclass()) {
+            addInterfaces(current, interfaces);
+        }
+        for (Class implemented : interfaces) {
+            ValueConverter converter = registered.get(implemented);
+            if (converter != null) {
+                return converter;
+            }
+        }
+
+        if (parent != null) {
+            return parent.find(type);
+        }
+        if (Enum.class.isAssignableFrom(type) && type != Enum.class) {
+            Class enumType = type;
+            while (!enumType.isEnum()) {
+                enumType = enumType.getSuperclass();
+            }
+            return new EnumConverter(enumType);
+        }
+        return null;
+    }
+
+    /**
+     * Breadth first, the interfaces a class names itself come before the ones they extend.
+     */
+    private static void addInterfaces(Class type, List<Class> interfaces) {
+        int start = interfaces.size();
+        for (Class implemented : type.getInterfaces()) {
+            if (!interfaces.contains(implemented)) {
+                interfaces.add(implemented);
+            }
+        }
+        for (int i = start; i < interfaces.size(); i++) {
+            for (Class extended : interfaces.get(i).getInterfaces()) {
+                if (!interfaces.contains(extended)) {
+                    interfaces.add(extended);
+                }
+            }
+        }
+    }
+
+    /**
+     * What types resolved to as of one version. The version is read before resolving, so a lookup that races with
+     * a registration is cached in a map that is already out of date and is never handed out again.
+     */
+    private static class Resolved {
+        final int version;
+        final ConcurrentHashMap<Class, ValueConverter> converters = new ConcurrentHashMap<Class, ValueConverter>();
+
+        Resolved(int version) {
+            this.version = version;
+        }
+    }
+}
@@ -2,21 +2,44 @@ package com.github.born2snipe.valtree.converter;
 
 import com.badlogic.gdx.math.Vector2;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 public class Vector2Converter extends ValueConverter<Vector2> {
-    private static final Pattern PATTERN = Pattern.compile("([0-9]+(\\.[0-9]+)?)\\s*?,\\s*?([0-9]+(\\.[0-9]+)?)");
-
     protected Vector2 fromText(String text) {
-        Matcher matcher = PATTERN.matcher(text);
-        if (matcher.find()) {
-            float x = Float.valueOf(matcher.group(1));
-            float y = Float.valueOf(matcher.group(3));
-            return new Vector2(x, y);
+        return convertFromText(text, new Vector2());
+    }
+
+    /**
+     * Reads the text into the given vector instead of a new one.
+     *
+     * @return the given vector, or null when the text is blank
+     */
+    public Vector2 convertFromText(String text, Vector2 out) throws UnableToConvertFromTextException {
+        if (text == null) {
+            return null;
+        }
+        int start = VectorText.start(text);
+        int end = VectorText.end(text, start);
+        if (start == end) {
+            return null;
+        }
+
+        int xEnd = VectorText.componentEnd(text, start, end);
+        int yEnd = VectorText.componentEnd(text, Math.min(xEnd + 1, end), end);
+        if (xEnd == end || yEnd != end) {
+            throw new UnableToConvertFromTextException(text, Vector2.class);
         }
+        float x = VectorText.component(text, start, xEnd, Vector2.class);
+        float y = VectorText.component(text, xEnd + 1, yEnd, Vector2.class);
+        return out.set(x, y);
+    }
+
+    @Override
+    public Vector2 copyOf(Vector2 value) {
+        return value == null ? null : value.cpy();
+    }
 
-        throw new UnableToConvertFromTextException(text, Vector2.class);
+    @Override
+    public boolean isCacheable() {
+        return true;
     }
 
     @Override
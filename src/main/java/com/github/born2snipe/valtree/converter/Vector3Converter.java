@@ -2,22 +2,47 @@ package com.github.born2snipe.valtree.converter;
 
 import com.badlogic.gdx.math.Vector3;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 public class Vector3Converter extends ValueConverter<Vector3> {
-    private static final Pattern PATTERN = Pattern.compile("([0-9]+(\\.[0-9]*)?)\\s*?,\\s*?([0-9]+(\\.[0-9]*)?)\\s*?,\\s*?([0-9]+(\\.[0-9]*)?)");
-
     @Override
     protected Vector3 fromText(String text) {
-        Matcher matcher = PATTERN.matcher(text);
-        if (matcher.find()) {
-            float x = Float.valueOf(matcher.group(1));
-            float y = Float.valueOf(matcher.group(3));
-            float z = Float.valueOf(matcher.group(5));
-            return new Vector3(x, y, z);
+        return convertFromText(text, new Vector3());
+    }
+
+    /**
+     * Reads the text into the given vector instead of a new one.
+     *
+     * @return the given vector, or null when the text is blank
+     */
+    public Vector3 convertFromText(String text, Vector3 out) throws UnableToConvertFromTextException {
+        if (text == null) {
+            return null;
+        }
+        int start = VectorText.start(text);
+        int end = VectorText.end(text, start);
+        if (start == end) {
+            return null;
+        }
+
+        int xEnd = VectorText.componentEnd(text, start, end);
+        int yEnd = VectorText.componentEnd(text, Math.min(xEnd + 1, end), end);
+        int zEnd = VectorText.componentEnd(text, Math.min(yEnd + 1, end), end);
+        if (xEnd == end || yEnd == end || zEnd != end) {
+            throw new UnableToConvertFromTextException(text, Vector3.class);
         }
-        throw new UnableToConvertFromTextException(text, Vector3.class);
+        float x = VectorText.component(text, start, xEnd, Vector3.class);
+        float y = VectorText.component(text, xEnd + 1, yEnd, Vector3.class);
+        float z = VectorText.component(text, yEnd + 1, zEnd, Vector3.class);
+        return out.set(x, y, z);
+    }
+
+    @Override
+    public Vector3 copyOf(Vector3 value) {
+        return value == null ? null : value.cpy();
+    }
+
+    @Override
+    public boolean isCacheable() {
+        return true;
     }
 
     @Override
@@ -0,0 +1,69 @@
+package com.github.born2snipe.valtree.converter;
+
+/**
+ * Finds the comma separated components of a vector like "(1.5, -2, 3e2)" in place, so they can be read with
+ * {@link NumberScanner} without splitting the text first.
+ */
+final class VectorText {
+    private VectorText() {
+    }
+
+    /**
+     * @return where the first component starts, after white space and an opening parenthesis
+     */
+    static int start(String text) {
+        int index = skipWhiteSpace(text, 0, text.length());
+        if (index < text.length() && text.charAt(index) == '(') {
+            index = skipWhiteSpace(text, index + 1, text.length());
+        }
+        return index;
+    }
+
+    /**
+     * @return where the last component ends, before white space and a closing parenthesis
+     */
+    static int end(String text, int start) {
+        int index = trimWhiteSpace(text, start, text.length());
+        if (index > start && text.charAt(index - 1) == ')') {
+            index = trimWhiteSpace(text, start, index - 1);
+        }
+        return index;
+    }
+
+    /**
+     * @return the index of the comma ending the component that starts at the index, or end for the last one
+     */
+    static int componentEnd(String text, int index, int end) {
+        while (index < end && text.charAt(index) != ',') {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * @throws UnableToConvertFromTextException when the component is not a number
+     */
+    static float component(String text, int start, int end, Class type) {
+        start = skipWhiteSpace(text, start, end);
+        end = trimWhiteSpace(text, start, end);
+        try {
+            return NumberScanner.scanFloat(text, start, end);
+        } catch (NumberFormatException e) {
+            throw new UnableToConvertFromTextException(text, type, e);
+        }
+    }
+
+    private static int skipWhiteSpace(String text, int index, int end) {
+        while (index < end && Character.isWhitespace(text.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private static int trimWhiteSpace(String text, int start, int end) {
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+}
@@ -0,0 +1,163 @@
+package com.github.born2snipe.valtree;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CompressionTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private ValTree valTree;
+
+    @Before
+    public void setUp() throws Exception {
+        valTree = new ValTree();
+        for (int i = 0; i < 500; i++) {
+            valTree.addChild("unit-" + i, null);
+            ValTree unit = valTree.getChild("unit-" + i);
+            unit.addChild("health", i);
+            unit.addChild("ability", "mind contröl");
+            unit.addChild("position", "(" + i + ", " + i + ")");
+        }
+    }
+
+    @Test
+    public void shouldParseWhatWasSavedWithEveryCompression() {
+        for (Compression compression : Compression.values()) {
+            ValTree parsed = new ValTree();
+            parsed.parse(new ByteArrayInputStream(save(compression)));
+
+            assertEquals(compression.name(), valTree.toString(), parsed.toString());
+        }
+    }
+
+    @Test
+    public void shouldMakeRepetitiveDocumentsMuchSmaller() {
+        int size = save(Compression.NONE).length;
+
+        assertTrue(save(Compression.GZIP).length * 5 < size);
+        assertTrue(save(Compression.DEFLATE).length * 5 < size);
+    }
+
+    @Test
+    public void shouldDetectTheCompressionOfFiles() throws IOException {
+        for (Compression compression : Compression.values()) {
+            File file = tmp.newFile(compression.name());
+            IOUtils.write(save(compression), new FileOutputStream(file));
+
+            ValTree parsed = new ValTree();
+            parsed.parse(file);
+            assertEquals(compression.name(), valTree.toString(), parsed.toString());
+
+            ValTree lazy = new ValTree();
+            lazy.parseLazy(file);
+            assertEquals(compression.name(), valTree.toString(), lazy.toString());
+
+            ValTree parallel = new ValTree();
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                parallel.parseParallel(file, executor);
+            } finally {
+                executor.shutdown();
+            }
+            assertEquals(compression.name(), valTree.toString(), parallel.toString());
+        }
+    }
+
+    @Test
+    public void shouldDetectDeflateOfTheFastestAndBestLevels() throws IOException {
+        for (int level : new int[]{Deflater.NO_COMPRESSION, Deflater.BEST_SPEED, Deflater.BEST_COMPRESSION}) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            DeflaterOutputStream deflater = new DeflaterOutputStream(output, new Deflater(level));
+            valTree.save(deflater);
+
+            ValTree parsed = new ValTree();
+            parsed.parseLazy(new ByteArrayInputStream(output.toByteArray()));
+            assertEquals(valTree.toString(), parsed.toString());
+        }
+    }
+
+    @Test
+    public void shouldNotMistakeTextForCompressedData() {
+        valTree.parseData("x 1\nx1 2\n");
+
+        assertEquals(1, valTree.queryForInt("x", 0));
+        assertEquals(2, valTree.queryForInt("x1", 0));
+    }
+
+    @Test
+    public void shouldNotMistakeTextThatStartsLikeAZlibHeaderForCompressedData() throws IOException {
+        StringBuilder longer = new StringBuilder("x\u0680 first\n");
+        for (int i = 0; i < 50; i++) {
+            longer.append("key-").append(i).append(" \u0680\u0681\u0682\n");
+        }
+
+        for (String text : new String[]{"x\u0680 1\n", "x\u0680\n", longer.toString()}) {
+            byte[] content = text.getBytes("UTF-8");
+            assertEquals(0xda, content[1] & 0xff);
+
+            ValTree parsed = new ValTree();
+            parsed.parse(new ByteArrayInputStream(content));
+            assertEquals(text, saved(parsed));
+
+            ValTree lazy = new ValTree();
+            lazy.parseLazy(new ByteArrayInputStream(content));
+            assertEquals(text, saved(lazy));
+
+            File file = tmp.newFile();
+            IOUtils.write(content, new FileOutputStream(file));
+            ValTree fromFile = new ValTree();
+            fromFile.parse(file);
+            assertEquals(text, saved(fromFile));
+        }
+    }
+
+    @Test
+    public void shouldParseEmptyDocuments() {
+        valTree.parse(new ByteArrayInputStream(new byte[0]));
+        assertEquals(0, valTree.size());
+
+        valTree.parse(new ByteArrayInputStream(new byte[]{'a'}));
+        assertEquals(1, valTree.size());
+    }
+
+    @Test
+    public void shouldDetectTheCompressionFromTheFirstTwoBytes() {
+        assertEquals(Compression.GZIP, Compression.detect(0x1f, 0x8b));
+        assertEquals(Compression.DEFLATE, Compression.detect(0x78, 0x9c));
+        assertEquals(Compression.DEFLATE, Compression.detect(0x78, 0xda));
+        assertEquals(Compression.NONE, Compression.detect(0x78, 0x9d));
+        assertEquals(Compression.NONE, Compression.detect(0x78, 0x5e));
+        assertEquals(Compression.NONE, Compression.detect(0x78, 0xbb));
+        assertEquals(Compression.NONE, Compression.detect('x', ' '));
+        assertEquals(Compression.NONE, Compression.detect(-1, -1));
+    }
+
+    private String saved(ValTree tree) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        tree.save(output);
+        return new String(output.toByteArray(), "UTF-8");
+    }
+
+    private byte[] save(Compression compression) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        valTree.save(output, compression);
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,141 @@
+package com.github.born2snipe.valtree;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FrozenValTreeTest {
+    private ValTree valTree;
+
+    @Before
+    public void setUp() throws Exception {
+        valTree = new ValTree();
+    }
+
+    @Test
+    public void shouldLookTheSameAsTheTreeItWasCreatedFrom() {
+        for (String filename : new String[]{"example.txt", "test.txt", "test2.txt"}) {
+            valTree.parse(testFile(filename));
+
+            assertEquals(filename, valTree.toString(), valTree.freeze().toString());
+        }
+    }
+
+    @Test
+    public void shouldAllowQuerying() {
+        valTree.parse(testFile("example.txt"));
+        valTree.addChild("spawn.pos", new Vector2(1, 2));
+        FrozenValTree frozen = valTree.freeze();
+
+        assertEquals(new Integer(100), frozen.queryForInteger("orc.grunt.health"));
+        assertEquals(new Float(250), frozen.queryForFloat("orc.knight.health"));
+        assertEquals("mind control", frozen.queryForString("orc.wizard.ability"));
+        assertEquals(new Vector2(1, 2), frozen.queryFor("spawn.pos", Vector2.class));
+        assertEquals("50", frozen.getChild("orc").query("wizard.health").getString());
+        assertNull(frozen.query("orc.does.not.exist"));
+        assertNull(frozen.queryForInteger("does.not.exist"));
+    }
+
+    @Test
+    public void shouldAllowWalkingTheChildren() {
+        valTree.parseData("a 1\n b 2\n c 3\nd");
+        FrozenValTree frozen = valTree.freeze();
+
+        ArrayList<String> keys = new ArrayList<String>();
+        for (FrozenValTree child : frozen.getChild("a")) {
+            keys.add(child.getKey());
+        }
+
+        assertEquals(Arrays.asList("b", "c"), keys);
+        assertEquals(2, frozen.size());
+        assertEquals("c", frozen.getChild("a").getIndex(1).getKey());
+        assertNull(frozen.getChild("a").getIndex(2));
+        assertEquals("a", frozen.getFirstChild().getKey());
+        assertTrue(frozen.getFirstChild().hasChildren());
+        assertFalse(frozen.getChild("d").hasChildren());
+        assertTrue(frozen.getChild("d").isNull());
+
+        Array<FrozenValTree> siblings = frozen.query("a.b").getSiblings();
+        assertEquals(2, siblings.size);
+        assertEquals("b", siblings.get(0).getKey());
+        assertEquals(0, frozen.getSiblings().size);
+    }
+
+    @Test
+    public void shouldNotSeeChangesMadeAfterFreezing() {
+        valTree.parseData("a 1");
+        FrozenValTree frozen = valTree.freeze();
+
+        valTree.getChild("a").setValue(2);
+        valTree.addChild("b", 3);
+
+        assertEquals(new Integer(1), frozen.queryForInteger("a"));
+        assertNull(frozen.getChild("b"));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void shouldBlowUpTheSameWayWhenAValueIsNotANumber() {
+        valTree.parseData("a text");
+
+        valTree.freeze().queryForInteger("a");
+    }
+
+    @Test
+    public void shouldFindChildrenWithTheSameKeyUnderDifferentParents() {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            content.append("unit-").append(i).append("\n health ").append(i).append("\n");
+        }
+        valTree.parseData(content.toString());
+        FrozenValTree frozen = valTree.freeze();
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(new Integer(i), frozen.queryForInteger("unit-" + i + ".health"));
+        }
+    }
+
+    @Test
+    public void shouldReadPrimitivesWithADefault() {
+        valTree.parseData("orc\n health 100\n speed 1.5\n name grunt\n huge 5000000000");
+        FrozenValTree frozen = valTree.freeze();
+
+        assertEquals(100, frozen.queryForInt("orc.health", 0));
+        assertEquals(1.5f, frozen.queryForFloat("orc.speed", 0), 0);
+        assertEquals(-1, frozen.queryForInt("orc.name", -1));
+        assertEquals(-1, frozen.queryForInt("orc.huge", -1));
+        assertEquals(-1, frozen.queryForInt("orc.missing", -1));
+        assertEquals(2f, frozen.queryForFloat(ValTreePath.compile("orc.missing"), 2f), 0);
+        assertEquals(100, frozen.queryForInt(ValTreePath.compile("orc.health"), 0));
+        assertEquals(100, frozen.getChild("orc").getChild("health").getInt(0));
+        assertEquals(1.5f, frozen.query("orc.speed").getFloat(0f), 0);
+    }
+
+    @Test
+    public void shouldOnlyMatchWholeSegments() {
+        valTree.parseData("orc\n grunt 1\n gruntling 2\n grün 3\nor 4\n grunt 5");
+        FrozenValTree frozen = valTree.freeze();
+
+        assertEquals("1", frozen.queryForString("orc.grunt"));
+        assertEquals("2", frozen.queryForString("orc.gruntling"));
+        assertEquals("3", frozen.queryForString("orc.grün"));
+        assertEquals("5", frozen.queryForString("or.grunt"));
+        assertEquals("1", frozen.queryForString("orc.grunt."));
+        assertNull(frozen.query("orc.grun"));
+        assertNull(frozen.query("orc..grunt"));
+        assertNull(frozen.query("orc.gruntlings"));
+    }
+
+    private InputStream testFile(String filename) {
+        return Thread.currentThread().getContextClassLoader().getResourceAsStream(filename);
+    }
+}
@@ -0,0 +1,189 @@
+package com.github.born2snipe.valtree;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IncrementalSaveTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private ValTree valTree;
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        valTree = new ValTree();
+        valTree.parseData("player\n name hero\n stats\n  health 100\n  mana 50\n inventory\n  sword 1\n  potion 3\n" +
+                "world\n level 4\n seed 1234\nsettings\n volume 7\n");
+        file = tmp.newFile("save.txt");
+    }
+
+    @Test
+    public void shouldBeCleanAfterParsing() {
+        assertFalse(valTree.isDirty());
+        assertFalse(valTree.query("player.stats").isDirty());
+    }
+
+    @Test
+    public void shouldMarkTheChangedNodeAndItsAncestorsDirty() {
+        valTree.query("player.stats.health").setValue(90);
+
+        assertTrue(valTree.query("player.stats.health").isDirty());
+        assertTrue(valTree.query("player.stats").isDirty());
+        assertTrue(valTree.getChild("player").isDirty());
+        assertTrue(valTree.isDirty());
+        assertFalse(valTree.query("player.stats.mana").isDirty());
+        assertFalse(valTree.query("player.inventory").isDirty());
+        assertFalse(valTree.getChild("world").isDirty());
+    }
+
+    @Test
+    public void shouldMarkTheParentDirtyWhenChildrenAreAddedOrRemoved() {
+        valTree.getChild("world").addChild("weather", "rain");
+        assertTrue(valTree.getChild("world").isDirty());
+        assertFalse(valTree.getChild("settings").isDirty());
+
+        Iterator<ValTree> children = valTree.getChild("settings").iterator();
+        children.next();
+        children.remove();
+        assertTrue(valTree.getChild("settings").isDirty());
+    }
+
+    @Test
+    public void shouldBeCleanAfterSaving() {
+        valTree.query("player.stats.health").setValue(90);
+
+        valTree.saveIncremental(file);
+
+        assertFalse(valTree.isDirty());
+        assertFalse(valTree.query("player.stats.health").isDirty());
+    }
+
+    @Test
+    public void shouldWriteTheSameAsSavingEveryTime() throws IOException {
+        valTree.saveIncremental(file);
+        assertSaved();
+
+        valTree.query("player.stats.health").setValue(90);
+        valTree.saveIncremental(file);
+        assertSaved();
+
+        valTree.getChild("world").addChild("weather", "rain");
+        valTree.query("player.inventory").addChild("shield", 1);
+        valTree.saveIncremental(file);
+        assertSaved();
+
+        ValTree inventory = valTree.query("player.inventory");
+        for (Iterator<ValTree> children = valTree.getChild("player").iterator(); children.hasNext(); ) {
+            if (children.next() == inventory) {
+                children.remove();
+            }
+        }
+        valTree.addChild(inventory);
+        valTree.query("world.seed").set("seed-2", 99);
+        valTree.saveIncremental(file);
+        assertSaved();
+
+        valTree.getChild("settings").iterator().next().setValue(null);
+        valTree.query("player.name").setValue("a much longer name than before");
+        valTree.saveIncremental(file);
+        assertSaved();
+
+        valTree.reparse(new ByteArrayInputStream(("world\n level 5\n seed 1234\nplayer\n name hero\n stats\n  mana 50\n" +
+                "  health 100\n").getBytes("UTF-8")));
+        valTree.saveIncremental(file);
+        assertSaved();
+    }
+
+    @Test
+    public void shouldCopyTheSubtreesThatDidNotChange() throws IOException {
+        valTree.saveIncremental(file);
+        replaceKeepingTheSameFile("sword 1", "sword 2");
+
+        valTree.getChild("settings").addChild("music", "off");
+        valTree.saveIncremental(file);
+
+        String saved = FileUtils.readFileToString(file, "UTF-8");
+        assertTrue(saved, saved.contains("sword 2"));
+        assertTrue(saved, saved.contains("music off"));
+    }
+
+    @Test
+    public void shouldNotWriteAnythingWhenNothingChanged() throws IOException {
+        valTree.saveIncremental(file);
+        replaceKeepingTheSameFile("sword 1", "sword 2");
+
+        valTree.saveIncremental(file);
+
+        assertTrue(FileUtils.readFileToString(file, "UTF-8").contains("sword 2"));
+    }
+
+    @Test
+    public void shouldWriteEverythingWhenTheFileWasChangedBySomeoneElse() throws IOException {
+        valTree.saveIncremental(file);
+        FileUtils.writeStringToFile(file, "something else entirely\n", "UTF-8");
+
+        valTree.getChild("settings").addChild("music", "off");
+        valTree.saveIncremental(file);
+
+        assertSaved();
+    }
+
+    @Test
+    public void shouldWriteEverythingWhenSavingToAnotherFile() throws IOException {
+        valTree.saveIncremental(file);
+        valTree.query("player.stats.health").setValue(90);
+
+        file = tmp.newFile("other.txt");
+        valTree.saveIncremental(file);
+
+        assertSaved();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldOnlySaveTreesWithoutAParent() {
+        valTree.getChild("player").saveIncremental(file);
+    }
+
+    @Test
+    public void shouldKeepTheFileWhenANodeHasNoKey() throws IOException {
+        valTree.saveIncremental(file);
+        String saved = FileUtils.readFileToString(file, "UTF-8");
+        valTree.getChild("world").parseData("level 5");
+
+        try {
+            valTree.saveIncremental(file);
+        } catch (IllegalStateException e) {
+            assertEquals(saved, FileUtils.readFileToString(file, "UTF-8"));
+            assertFalse(new File(file.getPath() + ".tmp").exists());
+            return;
+        }
+        throw new AssertionError("saved a node without a key");
+    }
+
+    private void replaceKeepingTheSameFile(String original, String replacement) throws IOException {
+        long lastModified = file.lastModified();
+        String content = FileUtils.readFileToString(file, "UTF-8");
+        FileUtils.writeStringToFile(file, content.replace(original, replacement), "UTF-8");
+        assertTrue(file.setLastModified(lastModified));
+    }
+
+    private void assertSaved() throws IOException {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        valTree.save(expected);
+        assertEquals(new String(expected.toByteArray(), "UTF-8"), FileUtils.readFileToString(file, "UTF-8"));
+    }
+}
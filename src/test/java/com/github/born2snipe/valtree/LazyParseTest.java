@@ -0,0 +1,109 @@
+package com.github.born2snipe.valtree;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LazyParseTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private ValTree valTree;
+
+    @Before
+    public void setUp() throws Exception {
+        valTree = new ValTree();
+    }
+
+    @Test
+    public void shouldBuildTheSameTreeAsAFullParse() {
+        for (String filename : new String[]{"example.txt", "test.txt", "test2.txt"}) {
+            ValTree expected = new ValTree();
+            expected.parse(testFile(filename));
+
+            valTree.parseLazy(testFile(filename));
+
+            assertEquals(filename, expected.toString(), valTree.toString());
+        }
+    }
+
+    @Test
+    public void shouldAllowQueryingWithoutBuildingTheRestOfTheTree() {
+        valTree.parseLazy(testFile("test2.txt"));
+
+        assertEquals("should have no problem with this indentation", valTree.queryForString("key1.key2.key3.key4-1.key5-1"));
+        assertEquals("gwrhhn rhehe heth", valTree.queryForString("key1.key2-2"));
+        assertEquals(new Float(1.618f), valTree.queryForFloat("j"));
+        assertNull(valTree.query("key1.does.not.exist"));
+    }
+
+    @Test
+    public void shouldKnowAboutChildrenBeforeTheyAreBuilt() {
+        valTree.parseLazy(ByteBuffer.wrap("a\n b\nc".getBytes()));
+
+        assertTrue(valTree.hasChildren());
+        assertTrue(valTree.getChild("a").hasChildren());
+        assertFalse(valTree.getChild("c").hasChildren());
+        assertEquals(2, valTree.size());
+    }
+
+    @Test
+    public void shouldAllowModifyingALazilyParsedTree() {
+        valTree.parseLazy(ByteBuffer.wrap("a\n b 1\n c 2".getBytes()));
+
+        valTree.getChild("a").addChild("d", "3");
+        valTree.query("a.b").set("e", "4");
+
+        assertEquals("a\n c 2\n d 3\n e 4\n", valTree.toString());
+    }
+
+    @Test
+    public void shouldDropTheUnbuiltNodesWhenCleared() {
+        valTree.parseLazy(ByteBuffer.wrap("a\n b 1".getBytes()));
+
+        valTree.clear();
+
+        assertFalse(valTree.hasChildren());
+        assertEquals(0, valTree.size());
+    }
+
+    @Test
+    public void shouldOnlyReadFromThePositionToTheLimitOfTheContent() {
+        ByteBuffer content = ByteBuffer.wrap("skip\na\n b 1\nskip".getBytes());
+        content.position(5);
+        content.limit(12);
+
+        valTree.parseLazy(content);
+        content.clear();
+
+        assertEquals("a\n b 1\n", valTree.toString());
+    }
+
+    @Test
+    public void shouldSupportLazilyReadingAFile() throws IOException {
+        File tmpFile = tmp.newFile();
+        IOUtils.write("k1 v1\r\n\tk2 v2\r\nk3 v3", new FileOutputStream(tmpFile));
+
+        valTree.parseLazy(tmpFile);
+
+        assertEquals("v2", valTree.queryForString("k1.k2"));
+        assertEquals("v3", valTree.queryForString("k3"));
+    }
+
+    private InputStream testFile(String filename) {
+        return Thread.currentThread().getContextClassLoader().getResourceAsStream(filename);
+    }
+}
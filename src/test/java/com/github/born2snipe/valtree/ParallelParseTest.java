@@ -0,0 +1,79 @@
+package com.github.born2snipe.valtree;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+
+public class ParallelParseTest {
+    private ExecutorService executor;
+    private ValTree valTree;
+
+    @Before
+    public void setUp() throws Exception {
+        executor = Executors.newFixedThreadPool(4);
+        valTree = new ValTree();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdown();
+    }
+
+    @Test
+    public void shouldBuildTheSameTreeAsASequentialParse() {
+        StringBuilder content = new StringBuilder("// generated\n");
+        for (int i = 0; i < 5000; i++) {
+            content.append(i % 2 == 0 ? " " : "\t").append("unit-").append(i).append(" ").append(i).append("\r\n");
+            content.append("    health ").append(i * 10).append(" // comment\n");
+            content.append("    stats\n");
+            content.append("        strength ").append(i).append("\n\n");
+            content.append("        ability flatulence\n");
+        }
+        byte[] bytes = content.toString().getBytes();
+        ValTree expected = new ValTree();
+        expected.parse(new ByteArrayInputStream(bytes));
+
+        valTree.parseParallel(ByteBuffer.wrap(bytes), executor);
+
+        assertEquals(5000, valTree.size());
+        assertEquals(expected.toString(), valTree.toString());
+        assertEquals("41990", valTree.queryForString("unit-4199.health"));
+    }
+
+    @Test
+    public void shouldKeepTheLastOfDuplicateTopLevelKeysInTheFirstPosition() {
+        StringBuilder content = new StringBuilder();
+        content.append("dup 1\n");
+        for (int i = 0; i < 20000; i++) {
+            content.append("key-").append(i).append(" ").append(i).append("\n");
+        }
+        content.append("dup 2\n");
+
+        valTree.parseParallel(ByteBuffer.wrap(content.toString().getBytes()), executor);
+
+        assertEquals("dup", valTree.getFirstChild().getKey());
+        assertEquals("2", valTree.getFirstChild().getString());
+    }
+
+    @Test
+    public void shouldHandleSmallContent() {
+        valTree.parseParallel(ByteBuffer.wrap("a\n b 1\nc 2".getBytes()), executor);
+
+        assertEquals("1", valTree.queryForString("a.b"));
+        assertEquals("2", valTree.queryForString("c"));
+    }
+
+    @Test
+    public void shouldHandleEmptyContent() {
+        valTree.parseParallel(ByteBuffer.wrap("// nothing\n".getBytes()), executor);
+
+        assertEquals(0, valTree.size());
+    }
+}
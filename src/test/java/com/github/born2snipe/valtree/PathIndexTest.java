@@ -0,0 +1,208 @@
+package com.github.born2snipe.valtree;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PathIndexTest {
+    private static final String[] QUERIES = {"orc", "orc.grunt", "orc.grunt.health", "orc.wizard.ability",
+            "orc.", "orc.grunt.", "grunt", "orc.health", "orc.grunt.health.max", ".orc", "orc..grunt", ""};
+
+    private ValTree valTree;
+
+    @Before
+    public void setUp() throws Exception {
+        valTree = new ValTree();
+    }
+
+    @Test
+    public void shouldFindTheSameNodesAsWalkingTheTree() {
+        valTree.parse(testFile("example.txt"));
+        ValTree indexed = new ValTree();
+        indexed.buildPathIndex();
+        indexed.parse(testFile("example.txt"));
+
+        assertTrue(indexed.hasPathIndex());
+        for (String query : QUERIES) {
+            assertEquals(query, String.valueOf(valTree.query(query)), String.valueOf(indexed.query(query)));
+        }
+        assertEquals(new Integer(100), indexed.queryForInteger("orc.grunt.health"));
+        assertEquals("mind control", indexed.queryForString("orc.wizard.ability"));
+        assertEquals(new Float(250), indexed.queryFor(ValTreePath.compile("orc.knight.health"), Float.class));
+    }
+
+    @Test
+    public void shouldTellApartPathsWithTheSameHash() {
+        valTree.buildPathIndex();
+        valTree.parseData("Aa 1\n BB 2\nBB 3\n Aa 4");
+
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        assertEquals("2", valTree.queryForString("Aa.BB"));
+        assertEquals("4", valTree.queryForString("BB.Aa"));
+        assertEquals("1", valTree.queryForString("Aa"));
+        assertEquals("3", valTree.queryForString("BB"));
+        assertNull(valTree.query("Aa.Aa"));
+    }
+
+    @Test
+    public void shouldFindNodesInADeepTree() {
+        valTree.buildPathIndex();
+        ValTree child = valTree;
+        StringBuilder path = new StringBuilder("root");
+        child.addChild("root", 0);
+        child = child.getChild("root");
+        for (int i = 0; i < 1000; i++) {
+            child.addChild("child-" + i, i);
+            child = child.getChild("child-" + i);
+            path.append(".child-").append(i);
+        }
+
+        assertSame(child, valTree.query(path.toString()));
+        assertEquals(new Integer(999), valTree.queryForInteger(path.toString()));
+    }
+
+    @Test
+    public void shouldKeepUpWithAddedChildren() {
+        valTree.parseData("a 1");
+        valTree.buildPathIndex();
+
+        valTree.addChild("a.b.c", 2);
+        valTree.getChild("a").addChild(new ValTree("d", "3"));
+
+        assertEquals("2", valTree.queryForString("a.b.c"));
+        assertEquals("3", valTree.queryForString("a.d"));
+    }
+
+    @Test
+    public void shouldForgetChildrenThatWereReplaced() {
+        valTree.buildPathIndex();
+        valTree.parseData("a\n b 1");
+
+        valTree.addChild(new ValTree("a", "2"));
+
+        assertEquals("2", valTree.queryForString("a"));
+        assertNull(valTree.query("a.b"));
+    }
+
+    @Test
+    public void shouldKeepUpWithRenamedNodes() {
+        valTree.buildPathIndex();
+        valTree.parseData("a\n b 1\n  c 2\n d 3");
+
+        valTree.query("a.b").set("d", 4);
+
+        assertNull(valTree.query("a.b"));
+        assertNull(valTree.query("a.b.c"));
+        assertEquals("4", valTree.queryForString("a.d"));
+        assertEquals("2", valTree.queryForString("a.d.c"));
+    }
+
+    @Test
+    public void shouldKeepUpWithClearedNodes() {
+        valTree.buildPathIndex();
+        valTree.parseData("a\n b\n  c 2");
+
+        valTree.query("a.b").clear();
+        assertNull(valTree.query("a.b.c"));
+
+        valTree.clear();
+        assertNull(valTree.query("a"));
+        assertTrue(valTree.hasPathIndex());
+    }
+
+    @Test
+    public void shouldKeepAClearedSubtreeInTheIndex() {
+        valTree.buildPathIndex();
+        valTree.parseData("a\n b\n  c 2\nd 1");
+        ValTree a = valTree.getChild("a");
+
+        a.clear();
+        assertSame(a, valTree.query("a"));
+        assertNull(valTree.query("a.b"));
+
+        a.addChild("e", 5);
+        assertEquals("5", valTree.queryForString("a.e"));
+        assertEquals("1", valTree.queryForString("d"));
+    }
+
+    @Test
+    public void shouldIndexASubtreeThatIsParsedAgain() {
+        valTree.buildPathIndex();
+        valTree.parseData("orc\n grunt\n  health 10\nelf 1");
+
+        valTree.getChild("orc").parseData("knight\n health 5");
+
+        assertEquals("5", valTree.queryForString("orc.knight.health"));
+        assertNull(valTree.query("orc.grunt"));
+        assertNull(valTree.query("orc.grunt.health"));
+        assertEquals("1", valTree.queryForString("elf"));
+    }
+
+    @Test
+    public void shouldIndexASubtreeThatIsParsedLazily() {
+        valTree.buildPathIndex();
+        valTree.parseData("orc\n grunt\n  health 10");
+
+        valTree.getChild("orc").parseLazy(ByteBuffer.wrap("knight\n health 5".getBytes()));
+
+        assertEquals("5", valTree.queryForString("orc.knight.health"));
+        assertNull(valTree.query("orc.grunt.health"));
+    }
+
+    @Test
+    public void shouldKeepUpWithReparsing() {
+        valTree.buildPathIndex();
+        valTree.parseData("a\n b 1\n c 2");
+
+        valTree.reparse(new ByteArrayInputStream("a\n c 3\n d 4".getBytes()));
+
+        assertNull(valTree.query("a.b"));
+        assertEquals("3", valTree.queryForString("a.c"));
+        assertEquals("4", valTree.queryForString("a.d"));
+    }
+
+    @Test
+    public void shouldFindNodesThatHaveNotBeenBuiltYetWhenParsedLazily() {
+        valTree.buildPathIndex();
+        valTree.parseLazy(ByteBuffer.wrap("a\n b\n  c 1\nd 2".getBytes()));
+
+        assertEquals("1", valTree.queryForString("a.b.c"));
+        assertEquals("2", valTree.queryForString("d"));
+        assertNull(valTree.query("a.b.e"));
+    }
+
+    @Test
+    public void shouldLeaveOutKeysThatCanNotBeQueried() {
+        valTree.buildPathIndex();
+        valTree.parseData("a.b 1\n c 2");
+
+        assertNull(valTree.query("a.b"));
+        assertNull(valTree.query("a.b.c"));
+    }
+
+    @Test
+    public void shouldOnlyUseTheIndexOnTheNodeItWasBuiltOn() {
+        valTree.parseData("a\n b\n  c 1");
+        valTree.buildPathIndex();
+
+        assertFalse(valTree.getChild("a").hasPathIndex());
+        assertEquals("1", valTree.getChild("a").queryForString("b.c"));
+
+        valTree.dropPathIndex();
+        assertFalse(valTree.hasPathIndex());
+        assertEquals("1", valTree.queryForString("a.b.c"));
+    }
+
+    private InputStream testFile(String filename) {
+        return Thread.currentThread().getContextClassLoader().getResourceAsStream(filename);
+    }
+}
@@ -1,15 +1,23 @@
 package com.github.born2snipe.valtree;
 
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+/**
+ * Only prints timings, run it with -Dperf when looking at the speed of the library.
+ */
 public class PerformanceTest {
     @Rule
     public TemporaryFolder tmp = new TemporaryFolder();
@@ -17,6 +25,7 @@ public class PerformanceTest {
 
     @Before
     public void setUp() throws Exception {
+        Assume.assumeTrue(Boolean.getBoolean("perf"));
         data = new ValTree();
         long start = System.currentTimeMillis();
         for (int i = 0; i < 100; i++) {
@@ -44,5 +53,81 @@ public class PerformanceTest {
         start = System.currentTimeMillis();
         data.parse(new FileInputStream(tmpFile));
         System.out.println("Read elapsed: " + (System.currentTimeMillis() - start) + " millis");
+
+        start = System.currentTimeMillis();
+        data.parse(tmpFile);
+        System.out.println("Memory mapped read elapsed: " + (System.currentTimeMillis() - start) + " millis");
+
+        start = System.currentTimeMillis();
+        data.parseLazy(tmpFile);
+        data.query("key-50.child-0.child-1.child-2");
+        System.out.println("Lazy read and query elapsed: " + (System.currentTimeMillis() - start) + " millis");
+
+        String deepest = "key-99";
+        for (int j = 0; j < 1000; j++) {
+            deepest += ".child-" + j;
+        }
+        data.parse(tmpFile);
+        start = System.currentTimeMillis();
+        for (int i = 0; i < 1000; i++) {
+            data.query(deepest);
+        }
+        System.out.println("1000 deep queries elapsed: " + (System.currentTimeMillis() - start) + " millis");
+
+        data.buildPathIndex();
+        start = System.currentTimeMillis();
+        for (int i = 0; i < 1000; i++) {
+            data.query(deepest);
+        }
+        System.out.println("1000 deep queries with a path index elapsed: " + (System.currentTimeMillis() - start) + " millis");
+
+        File saveFile = tmp.newFile();
+        data.saveIncremental(saveFile);
+        data.query("key-50.child-0.child-1").setValue("changed");
+        start = System.currentTimeMillis();
+        data.saveIncremental(saveFile);
+        System.out.println("Incremental write after one change elapsed: " + (System.currentTimeMillis() - start) + " millis");
+
+        File binaryFile = tmp.newFile();
+        start = System.currentTimeMillis();
+        data.saveBinary(new FileOutputStream(binaryFile));
+        System.out.println("Binary file size: " + binaryFile.length() / 1024 + " Kb");
+        System.out.println("Binary write elapsed: " + (System.currentTimeMillis() - start) + " millis");
+
+        start = System.currentTimeMillis();
+        data.parseBinary(new FileInputStream(binaryFile));
+        System.out.println("Binary read elapsed: " + (System.currentTimeMillis() - start) + " millis");
+    }
+
+    @Test
+    public void shouldScaleWhenParsingInParallel() throws IOException {
+        File tmpFile = tmp.newFile();
+        PrintStream output = new PrintStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+        for (int i = 0; i < 100000; i++) {
+            output.println("unit-" + i);
+            output.println("    health " + i);
+            output.println("    strength " + i * 2);
+            output.println("    position (" + i + ", " + i + ")");
+            output.println("    ability mind control");
+        }
+        output.close();
+        System.out.println("Parallel test file size: " + tmpFile.length() / 1024 / 1024 + " Mb");
+
+        ValTree tree = new ValTree();
+        long start = System.currentTimeMillis();
+        tree.parse(tmpFile);
+        System.out.println("Sequential read elapsed: " + (System.currentTimeMillis() - start) + " millis");
+
+        int maxThreads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                start = System.currentTimeMillis();
+                tree.parseParallel(tmpFile, executor);
+                System.out.println("Parallel read with " + threads + " thread(s) elapsed: " + (System.currentTimeMillis() - start) + " millis");
+            } finally {
+                executor.shutdown();
+            }
+        }
     }
 }
@@ -0,0 +1,99 @@
+package com.github.born2snipe.valtree;
+
+import com.badlogic.gdx.utils.Array;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ReparseTest {
+    private ValTree valTree;
+
+    @Before
+    public void setUp() throws Exception {
+        valTree = new ValTree();
+        valTree.parseData("orc\n grunt\n  health 100\n  strength 250\n wizard\n  health 50");
+    }
+
+    @Test
+    public void shouldKeepTheNodesWhenNothingChanged() {
+        ValTree grunt = valTree.query("orc.grunt");
+
+        ValTreeChanges changes = reparse("orc\n grunt\n  health 100\n  strength 250\n wizard\n  health 50");
+
+        assertFalse(changes.hasChanges());
+        assertSame(grunt, valTree.query("orc.grunt"));
+    }
+
+    @Test
+    public void shouldOnlyUpdateTheValuesThatChanged() {
+        ValTree health = valTree.query("orc.grunt.health");
+        assertEquals(new Integer(100), health.getInteger());
+
+        ValTreeChanges changes = reparse("orc\n grunt\n  health 120 // buffed\n  strength 250\n wizard\n  health 50");
+
+        assertSame(health, valTree.query("orc.grunt.health"));
+        assertEquals(new Integer(120), health.getInteger());
+        assertEquals(new Float(120), health.getFloat());
+        assertPaths(changes.getChanged(), "orc.grunt.health");
+        assertPaths(changes.getAdded());
+        assertPaths(changes.getRemoved());
+    }
+
+    @Test
+    public void shouldAddAndRemoveSubtrees() {
+        ValTreeChanges changes = reparse("orc\n grunt\n  health 100\n knight\n  health 250\n  armor\n   plate 1");
+
+        assertPaths(changes.getAdded(), "orc.knight");
+        assertPaths(changes.getRemoved(), "orc.grunt.strength", "orc.wizard");
+        assertNull(valTree.query("orc.wizard"));
+        assertEquals("1", valTree.queryForString("orc.knight.armor.plate"));
+    }
+
+    @Test
+    public void shouldEndUpInDocumentOrder() {
+        String reordered = "orc\n wizard\n  health 50\n grunt\n  strength 250\n  health 100";
+
+        ValTreeChanges changes = reparse(reordered);
+
+        assertFalse(changes.hasChanges());
+        ValTree expected = new ValTree();
+        expected.parseData(reordered);
+        assertEquals(expected.toString(), valTree.toString());
+    }
+
+    @Test
+    public void shouldReplaceNodesWithDuplicateKeysTheSameWayParsingDoes() {
+        String duplicated = "orc\n grunt\n  health 100\n grunt\n  health 5";
+
+        ValTreeChanges changes = reparse(duplicated);
+
+        ValTree expected = new ValTree();
+        expected.parseData(duplicated);
+        assertEquals(expected.toString(), valTree.toString());
+        assertPaths(changes.getChanged(), "orc.grunt");
+    }
+
+    @Test
+    public void shouldReportPathsRelativeToTheReparsedNode() {
+        ValTree orc = valTree.getChild("orc");
+
+        ValTreeChanges changes = orc.reparse(new ByteArrayInputStream("grunt\n health 1".getBytes()));
+
+        assertPaths(changes.getChanged(), "grunt.health");
+        assertPaths(changes.getRemoved(), "grunt.strength", "wizard");
+    }
+
+    private void assertPaths(Array<String> actual, String... expected) {
+        assertEquals(new Array<String>(expected), actual);
+    }
+
+    private ValTreeChanges reparse(String content) {
+        return valTree.reparse(new ByteArrayInputStream(content.getBytes()));
+    }
+}
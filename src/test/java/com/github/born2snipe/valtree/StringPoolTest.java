@@ -0,0 +1,111 @@
+package com.github.born2snipe.valtree;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class StringPoolTest {
+    private StringPool pool;
+
+    @Before
+    public void setUp() throws Exception {
+        pool = new StringPool(8);
+    }
+
+    @Test
+    public void shouldHandOutTheSameInstanceForTheSameCharacters() {
+        String first = pool.intern("xhealthx".toCharArray(), 1, 6);
+        String second = pool.intern("health".getBytes(), 0, 6);
+        String third = pool.intern(new String("health"));
+
+        assertEquals("health", first);
+        assertSame(first, second);
+        assertSame(first, third);
+        assertEquals(1, pool.size());
+    }
+
+    @Test
+    public void shouldPoolNonAsciiBytes() {
+        byte[] bytes = "välue".getBytes(ByteLineScanner.UTF_8);
+
+        String first = pool.intern(bytes, 0, bytes.length);
+
+        assertEquals("välue", first);
+        assertSame(first, pool.intern("välue".toCharArray(), 0, 5));
+    }
+
+    @Test
+    public void shouldMatchEveryLengthOfUtf8Sequence() {
+        for (String text : new String[]{"ümlaut", "\u0680key", "\u20ac-price", "orc-\ud83d\ude00", "\u00e9\u4e2d\ud83d\ude00"}) {
+            byte[] bytes = ("x" + text + "x").getBytes(ByteLineScanner.UTF_8);
+
+            String pooled = pool.intern(text);
+            assertSame(text, pooled, pool.intern(bytes, 1, bytes.length - 2));
+        }
+        assertEquals(5, pool.size());
+    }
+
+    @Test
+    public void shouldTellApartStringsThatOnlyDifferInNonAsciiCharacters() {
+        byte[] first = "grün".getBytes(ByteLineScanner.UTF_8);
+        byte[] second = "grün".replace('ü', 'ö').getBytes(ByteLineScanner.UTF_8);
+
+        assertEquals("grün", pool.intern(first, 0, first.length));
+        assertEquals("grön", pool.intern(second, 0, second.length));
+        assertEquals(2, pool.size());
+    }
+
+    @Test
+    public void shouldDecodeMalformedBytesLikeAString() {
+        byte[] bytes = {'a', (byte) 0xc3, 'b', (byte) 0xed, (byte) 0xa0, (byte) 0x80, (byte) 0xe2, (byte) 0x82};
+        String expected = new String(bytes, ByteLineScanner.UTF_8);
+
+        String pooled = pool.intern(bytes, 0, bytes.length);
+
+        assertEquals(expected, pooled);
+        assertSame(pooled, pool.intern(bytes, 0, bytes.length));
+        assertSame(pooled, pool.intern(expected));
+    }
+
+    @Test
+    public void shouldKeepEveryStringWhenGrowing() {
+        for (int i = 0; i < 10000; i++) {
+            pool.intern(String.valueOf(i));
+        }
+
+        assertEquals(10000, pool.size());
+        for (int i = 0; i < 10000; i++) {
+            char[] chars = String.valueOf(i).toCharArray();
+            assertEquals(String.valueOf(i), pool.intern(chars, 0, chars.length));
+        }
+        assertEquals(10000, pool.size());
+    }
+
+    @Test
+    public void shouldShareRepeatedKeysAndShortValuesWhenParsing() {
+        ValTree tree = new ValTree();
+        tree.parse(testFile(), pool);
+
+        assertSame(tree.query("orc.grunt.health").getKey(), tree.query("orc.wizard.health").getKey());
+        assertSame(tree.query("orc.grunt.strength").getString(), tree.query("orc.wizard.dexterity").getString());
+        assertNotSame(tree.query("orc.wizard.ability").getString(), pool.intern(new String("mind control")));
+    }
+
+    @Test
+    public void shouldShareRepeatedKeysWhenLazilyParsing() {
+        ValTree tree = new ValTree();
+        tree.parseLazy(ByteBuffer.wrap("a\n key 1\nb\n key 2".getBytes()), pool);
+
+        assertSame(tree.query("a.key").getKey(), tree.query("b.key").getKey());
+        assertSame(tree.query("a.key").getKey(), pool.intern("key"));
+    }
+
+    private java.io.InputStream testFile() {
+        return Thread.currentThread().getContextClassLoader().getResourceAsStream("example.txt");
+    }
+}
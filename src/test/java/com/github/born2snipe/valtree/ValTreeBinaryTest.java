@@ -0,0 +1,101 @@
+package com.github.born2snipe.valtree;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ValTreeBinaryTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private ValTree valTree;
+
+    @Before
+    public void setUp() throws Exception {
+        valTree = new ValTree();
+    }
+
+    @Test
+    public void shouldReadBackTheSameTree() {
+        for (String filename : new String[]{"example.txt", "test.txt", "test2.txt"}) {
+            ValTree expected = new ValTree();
+            expected.parse(testFile(filename));
+
+            valTree.parseBinary(toBinary(expected));
+
+            assertEquals(filename, expected.toString(), valTree.toString());
+        }
+    }
+
+    @Test
+    public void shouldKeepTheExactTextOfNumbers() {
+        ValTree expected = new ValTree();
+        expected.parseData("a 1\nb -42\nc 007\nd 2.01\ne 1.50\nf -0.0\ng 1e3\nh 2147483648\ni -\nj 3.\nk välue\nl");
+
+        valTree.parseBinary(toBinary(expected));
+
+        assertEquals(expected.toString(), valTree.toString());
+        assertEquals(new Integer(-42), valTree.queryForInteger("b"));
+        assertEquals(new Float(2.01f), valTree.queryForFloat("d"));
+        assertTrue(valTree.getChild("l").isNull());
+    }
+
+    @Test
+    public void shouldStoreRepeatedKeysAndValuesOnce() {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            content.append("unit-").append(i).append("\n");
+            content.append(" ability mind control\n health 100\n strength 250\n dexterity 50\n");
+        }
+        ValTree tree = new ValTree();
+        tree.parseData(content.toString());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        tree.saveBinary(output);
+
+        assertTrue(output.size() < content.length() / 2);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void shouldBlowUpWhenTheInputIsNotBinary() {
+        valTree.parseBinary(new ByteArrayInputStream("key value".getBytes()));
+    }
+
+    @Test
+    public void shouldConvertFilesBetweenTextAndBinary() throws IOException {
+        File text = tmp.newFile();
+        File binary = tmp.newFile();
+        File roundTrip = tmp.newFile();
+        FileUtils.writeStringToFile(text, "orc\n\tgrunt\n\t\thealth 100\n\t\tability flätulence\n", "UTF-8");
+
+        ValTreeBinaryConverter.toBinary(text, binary);
+        ValTreeBinaryConverter.toText(binary, roundTrip);
+        assertEquals("orc\n grunt\n  health 100\n  ability flätulence\n", FileUtils.readFileToString(roundTrip, "UTF-8"));
+
+        ValTree expected = new ValTree();
+        expected.parse(text);
+        valTree.parse(roundTrip);
+        assertEquals(expected.toString(), valTree.toString());
+    }
+
+    private ByteArrayInputStream toBinary(ValTree tree) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        tree.saveBinary(output);
+        return new ByteArrayInputStream(output.toByteArray());
+    }
+
+    private InputStream testFile(String filename) {
+        return Thread.currentThread().getContextClassLoader().getResourceAsStream(filename);
+    }
+}
@@ -0,0 +1,135 @@
+package com.github.born2snipe.valtree;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ValTreeEqualsTest {
+    private static final String DOCUMENT = "player\n name hero\n stats\n  health 100\n  mana 50\nworld\n level 4\n";
+
+    private ValTree valTree;
+    private ValTree other;
+
+    @Before
+    public void setUp() throws Exception {
+        valTree = new ValTree();
+        valTree.parseData(DOCUMENT);
+        other = new ValTree();
+        other.parseData(DOCUMENT);
+    }
+
+    @Test
+    public void shouldBeEqualWhenParsedFromTheSameDocument() throws UnsupportedEncodingException {
+        assertEquals(valTree, other);
+        assertEquals(valTree.hashCode(), other.hashCode());
+        assertEquals(valTree.getStructuralHash(), other.getStructuralHash());
+
+        ValTree lazy = new ValTree();
+        lazy.parseLazy(ByteBuffer.wrap(DOCUMENT.getBytes("UTF-8")));
+        assertEquals(valTree, lazy);
+    }
+
+    @Test
+    public void shouldBeEqualWhenBuiltByHand() {
+        ValTree built = new ValTree();
+        built.addChild("player", null);
+        built.getChild("player").addChild("name", "hero");
+        built.getChild("player").addChild("stats", null);
+        built.query("player.stats").addChild("health", 100);
+        built.query("player.stats").addChild("mana", 50);
+        built.addChild("world", null);
+        built.getChild("world").addChild("level", 4);
+
+        assertEquals(valTree, built);
+    }
+
+    @Test
+    public void shouldNotBeEqualAfterADeepChange() {
+        assertEquals(valTree, other);
+
+        other.query("player.stats.health").setValue(90);
+
+        assertNotEquals(valTree, other);
+        assertNotEquals(valTree.getStructuralHash(), other.getStructuralHash());
+        assertEquals(valTree.getChild("world"), other.getChild("world"));
+        assertNotEquals(valTree.getChild("player"), other.getChild("player"));
+    }
+
+    @Test
+    public void shouldBeEqualAgainAfterTheChangeIsUndone() {
+        other.query("player.stats.health").setValue(90);
+        assertNotEquals(valTree, other);
+
+        other.query("player.stats.health").setValue(100);
+        assertEquals(valTree, other);
+    }
+
+    @Test
+    public void shouldNotBeEqualWhenChildrenAreAddedOrRemoved() {
+        other.getChild("world").addChild("weather", "rain");
+        assertNotEquals(valTree, other);
+
+        Iterator<ValTree> children = other.getChild("world").iterator();
+        children.next();
+        children.next();
+        children.remove();
+        assertEquals(valTree, other);
+    }
+
+    @Test
+    public void shouldNotBeEqualWhenTheKeyChanges() {
+        other.query("world.level").set("stage", 4);
+
+        assertNotEquals(valTree, other);
+    }
+
+    @Test
+    public void shouldTellNullAndEmptyValuesApart() {
+        valTree.query("player.name").setValue(null);
+        other.query("player.name").setValue("");
+
+        assertNotEquals(valTree, other);
+    }
+
+    @Test
+    public void shouldCareAboutTheOrderOfTheChildren() {
+        other.parseData("world\n level 4\nplayer\n name hero\n stats\n  health 100\n  mana 50\n");
+
+        assertNotEquals(valTree, other);
+    }
+
+    @Test
+    public void shouldNotBeEqualAfterReparsingAChangedDocument() throws UnsupportedEncodingException {
+        valTree.hashCode();
+
+        valTree.reparse(new ByteArrayInputStream(DOCUMENT.replace("level 4", "level 5").getBytes("UTF-8")));
+
+        assertNotEquals(valTree, other);
+        assertFalse(valTree.equals(null));
+        assertFalse(valTree.equals(DOCUMENT));
+    }
+
+    @Test
+    public void shouldTellWhetherTheStructureChangedByTheHash() {
+        assertTrue(valTree.hasSameStructure(other));
+        ValTree snapshot = new ValTree();
+        snapshot.parseData(DOCUMENT);
+
+        valTree.query("player.stats.mana").setValue(60);
+        assertFalse(valTree.hasSameStructure(other));
+        assertTrue(valTree.getChild("world").hasSameStructure(other.getChild("world")));
+
+        valTree.query("player.stats.mana").setValue(50);
+        assertTrue(valTree.hasSameStructure(snapshot));
+        assertFalse(valTree.hasSameStructure(null));
+    }
+}
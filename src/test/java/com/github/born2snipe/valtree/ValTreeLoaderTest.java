@@ -0,0 +1,94 @@
+package com.github.born2snipe.valtree;
+
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.files.FileHandle;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class ValTreeLoaderTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private AssetManager assetManager;
+
+    @Before
+    public void setUp() throws Exception {
+        FileHandleResolver resolver = new FileHandleResolver() {
+            @Override
+            public FileHandle resolve(String fileName) {
+                return new FileHandle(fileName);
+            }
+        };
+        assetManager = new AssetManager(resolver);
+        assetManager.setLoader(ValTree.class, new ValTreeLoader(resolver));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        assetManager.dispose();
+    }
+
+    @Test
+    public void shouldLoadAValTreeAsAnAsset() throws IOException {
+        String fileName = write("key value\n child 1", "UTF-8");
+
+        assetManager.load(fileName, ValTree.class);
+        assetManager.finishLoading();
+
+        assertEquals(new Integer(1), assetManager.get(fileName, ValTree.class).queryForInteger("key.child"));
+    }
+
+    @Test
+    public void shouldAllowUnloadingTheAsset() throws IOException {
+        String fileName = write("key value", "UTF-8");
+        assetManager.load(fileName, ValTree.class);
+        assetManager.finishLoading();
+
+        assetManager.unload(fileName);
+
+        assertFalse(assetManager.isLoaded(fileName));
+    }
+
+    @Test
+    public void shouldAllowLazilyLoadingWithACharset() throws IOException {
+        String fileName = write("key välue", "UTF-16");
+        ValTreeLoader.ValTreeParameter parameter = new ValTreeLoader.ValTreeParameter();
+        parameter.charset = "UTF-16";
+        parameter.lazy = true;
+
+        assetManager.load(fileName, ValTree.class, parameter);
+        assetManager.finishLoading();
+
+        assertEquals("välue", assetManager.get(fileName, ValTree.class).queryForString("key"));
+    }
+
+    @Test
+    public void shouldAllowLoadingWithACharset() throws IOException {
+        String fileName = write("key välue", "UTF-16");
+        ValTreeLoader.ValTreeParameter parameter = new ValTreeLoader.ValTreeParameter();
+        parameter.charset = "UTF-16";
+
+        assetManager.load(fileName, ValTree.class, parameter);
+        assetManager.finishLoading();
+
+        assertEquals("välue", assetManager.get(fileName, ValTree.class).queryForString("key"));
+    }
+
+    private String write(String content, String charset) throws IOException {
+        File file = tmp.newFile();
+        IOUtils.write(content, new FileOutputStream(file), charset);
+        return file.getAbsolutePath();
+    }
+}
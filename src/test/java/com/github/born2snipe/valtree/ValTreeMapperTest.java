@@ -0,0 +1,257 @@
+package com.github.born2snipe.valtree;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.github.born2snipe.valtree.converter.ValueConverter;
+import com.github.born2snipe.valtree.converter.ValueConverterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ValTreeMapperTest {
+    private ValTree valTree;
+
+    @Before
+    public void setUp() throws Exception {
+        valTree = new ValTree();
+    }
+
+    @Test
+    public void shouldReadFieldsWithTheSameNameAsTheChildren() {
+        valTree.parse(testFile("example.txt"));
+
+        UnitStats grunt = ValTreeMapper.read(valTree.query("orc.grunt"), UnitStats.class);
+
+        assertEquals(100, grunt.health);
+        assertEquals(250f, grunt.strength, 0);
+        assertEquals(new Integer(50), grunt.dexterity);
+        assertEquals("flatulence", grunt.ability);
+    }
+
+    @Test
+    public void shouldLeaveFieldsWithoutAChildAlone() {
+        valTree.parseData("health 10");
+
+        UnitStats stats = ValTreeMapper.read(valTree, UnitStats.class);
+
+        assertEquals(10, stats.health);
+        assertEquals(1f, stats.strength, 0);
+        assertNull(stats.ability);
+    }
+
+    @Test
+    public void shouldReadEveryKindOfField() {
+        valTree.parseData("id 9000000000\nscale 0.5\nvisible true\nlevel 3\ngrade A\nspawn (1, 2)\n"
+                + "stats\n health 20\n"
+                + "names\n n Gru\n n2 Bob\n"
+                + "drops\n 0 gold\n 1 gem\n"
+                + "path\n 0 (1, 1)\n 1 (2, 2)\n"
+                + "scores\n 0 1\n 1 2\n"
+                + "resistances\n fire 0.5\n ice 0.25\n"
+                + "allies\n elf\n  health 5\n dwarf\n  health 6\n"
+                + "inherited yes");
+
+        Unit unit = ValTreeMapper.read(valTree, Unit.class);
+
+        assertEquals(9000000000L, unit.id);
+        assertEquals(0.5, unit.scale, 0);
+        assertTrue(unit.visible);
+        assertEquals(3, unit.level);
+        assertEquals('A', unit.grade);
+        assertEquals(new Vector2(1, 2), unit.spawn);
+        assertEquals(20, unit.stats.health);
+        assertEquals(Arrays.asList("Gru", "Bob"), unit.names);
+        assertEquals(2, unit.drops.size);
+        assertEquals("gem", unit.drops.get(1));
+        assertArrayEquals(new Vector2[]{new Vector2(1, 1), new Vector2(2, 2)}, unit.path);
+        assertArrayEquals(new int[]{1, 2}, unit.scores);
+        assertEquals(0.25f, unit.resistances.get("ice"), 0);
+        assertEquals(6, unit.allies.get("dwarf").health);
+        assertEquals("yes", unit.inherited);
+    }
+
+    @Test
+    public void shouldFillInExistingObjects() {
+        valTree.parseData("stats\n health 20\nnames\n 0 Gru");
+        Unit unit = new Unit();
+        UnitStats stats = new UnitStats();
+        unit.stats = stats;
+        List<String> names = unit.names;
+
+        assertSame(unit, ValTreeMapper.readInto(valTree, unit));
+        assertSame(stats, unit.stats);
+        assertSame(names, unit.names);
+        assertEquals(Arrays.asList("Gru"), unit.names);
+    }
+
+    @Test
+    public void shouldWriteTheFieldsAsChildren() {
+        Unit unit = new Unit();
+        unit.id = 7;
+        unit.spawn = new Vector2(3, 4);
+        unit.stats = new UnitStats();
+        unit.stats.ability = "smash";
+        unit.names.add("Gru");
+        unit.scores = new int[]{5};
+        unit.resistances.put("fire", 0.5f);
+        unit.inherited = "yes";
+
+        ValTreeMapper.write(unit, valTree);
+
+        assertEquals(new Integer(7), valTree.queryForInteger("id"));
+        assertEquals(new Vector2(3, 4), valTree.queryFor("spawn", Vector2.class));
+        assertEquals("smash", valTree.queryForString("stats.ability"));
+        assertEquals("Gru", valTree.queryForString("names.0"));
+        assertEquals("5", valTree.queryForString("scores.0"));
+        assertEquals(new Float(0.5f), valTree.queryForFloat("resistances.fire"));
+        assertEquals("yes", valTree.queryForString("inherited"));
+        assertNull(valTree.getChild("allies"));
+        assertNull(valTree.getChild("transientField"));
+    }
+
+    @Test
+    public void shouldReadBackWhatWasWritten() {
+        valTree.parseData("id 1\nspawn (1, 2)\nstats\n health 3\nnames\n 0 Gru\nallies\n elf\n  health 5\ninherited yes");
+        Unit unit = ValTreeMapper.read(valTree, Unit.class);
+
+        ValTree written = new ValTree();
+        ValTreeMapper.write(unit, written);
+        Unit readBack = ValTreeMapper.read(written, Unit.class);
+
+        assertEquals(unit.id, readBack.id);
+        assertEquals(unit.spawn, readBack.spawn);
+        assertEquals(unit.stats.health, readBack.stats.health);
+        assertEquals(unit.names, readBack.names);
+        assertEquals(unit.allies.get("elf").health, readBack.allies.get("elf").health);
+    }
+
+    @Test
+    public void shouldReplaceExistingChildrenAndKeepTheOthers() {
+        valTree.parseData("health 1\nunknown 2");
+        UnitStats stats = new UnitStats();
+        stats.health = 5;
+
+        ValTreeMapper.write(stats, valTree);
+
+        assertEquals(new Integer(5), valTree.queryForInteger("health"));
+        assertEquals(new Integer(2), valTree.queryForInteger("unknown"));
+        assertEquals("health", valTree.getFirstChild().getKey());
+    }
+
+    @Test
+    public void shouldAllowClassesThatReferToThemselves() {
+        valTree.parseData("name a\nnext\n name b\n next\n  name c");
+
+        Link link = ValTreeMapper.read(valTree, Link.class);
+
+        assertEquals("c", link.next.next.name);
+        assertNull(link.next.next.next);
+    }
+
+    @Test
+    public void shouldUseTheConvertersOfTheTree() {
+        ValueConverterRegistry registry = new ValueConverterRegistry();
+        registry.register(Badge.class, new ValueConverter<Badge>() {
+            @Override
+            protected Badge fromText(String text) {
+                Badge badge = new Badge();
+                badge.text = text;
+                return badge;
+            }
+
+            @Override
+            protected String toText(Badge value) {
+                return value.text;
+            }
+        });
+        valTree.setConverters(registry);
+        valTree.parseData("badge gold\nbadges\n 0 silver\n 1 bronze");
+
+        Decorated decorated = ValTreeMapper.read(valTree, Decorated.class);
+        assertEquals("gold", decorated.badge.text);
+        assertEquals("bronze", decorated.badges.get(1).text);
+
+        ValTree written = new ValTree();
+        written.setConverters(registry);
+        ValTreeMapper.write(decorated, written);
+        assertEquals("gold", written.queryForString("badge"));
+        assertEquals("silver", written.queryForString("badges.0"));
+    }
+
+    @Test
+    public void shouldMapAsNestedObjectsWhenTheTreeHasNoConverter() {
+        valTree.parseData("badge\n text gold");
+
+        Decorated decorated = ValTreeMapper.read(valTree, Decorated.class);
+
+        assertEquals("gold", decorated.badge.text);
+    }
+
+    @Test(expected = ValTreeMapper.MappingException.class)
+    public void shouldBlowUpWhenACollectionDoesNotSayWhatItHolds() {
+        ValTreeMapper.read(valTree, RawList.class);
+    }
+
+    private InputStream testFile(String filename) {
+        return Thread.currentThread().getContextClassLoader().getResourceAsStream(filename);
+    }
+
+    static class UnitStats {
+        int health;
+        float strength = 1;
+        Integer dexterity;
+        String ability;
+    }
+
+    static class Base {
+        String inherited;
+    }
+
+    static class Unit extends Base {
+        long id;
+        double scale;
+        boolean visible;
+        short level;
+        char grade;
+        Vector2 spawn;
+        UnitStats stats;
+        final List<String> names = new ArrayList<String>();
+        Array<String> drops;
+        Vector2[] path;
+        int[] scores;
+        Map<String, Float> resistances = new LinkedHashMap<String, Float>();
+        ObjectMap<String, UnitStats> allies;
+        transient String transientField = "skipped";
+    }
+
+    static class Link {
+        String name;
+        Link next;
+    }
+
+    static class Badge {
+        String text;
+    }
+
+    static class Decorated {
+        Badge badge;
+        List<Badge> badges;
+    }
+
+    static class RawList {
+        List items;
+    }
+}
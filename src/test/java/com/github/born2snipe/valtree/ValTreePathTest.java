@@ -0,0 +1,66 @@
+package com.github.born2snipe.valtree;
+
+import com.badlogic.gdx.math.Vector2;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.InputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ValTreePathTest {
+    private static final ValTreePath GRUNT_HEALTH = ValTreePath.compile("orc.grunt.health");
+
+    private ValTree valTree;
+
+    @Before
+    public void setUp() throws Exception {
+        valTree = new ValTree();
+        valTree.parse(testFile("example.txt"));
+    }
+
+    @Test
+    public void shouldFindTheSameNodesAsAStringQuery() {
+        for (String query : new String[]{"orc", "orc.grunt", "orc.grunt.health", "orc.wizard.ability", "orc.", "nope.health"}) {
+            assertSame(query, valTree.query(query), valTree.query(ValTreePath.compile(query)));
+        }
+    }
+
+    @Test
+    public void shouldAllowQueryingForValues() {
+        valTree.addChild("spawn.pos", new Vector2(1, 2));
+
+        assertEquals(new Integer(100), valTree.queryForInteger(GRUNT_HEALTH));
+        assertEquals(new Float(250), valTree.queryForFloat(ValTreePath.compile("orc.knight.health")));
+        assertEquals("mind control", valTree.queryForString(ValTreePath.compile("orc.wizard.ability")));
+        assertEquals(new Vector2(1, 2), valTree.queryFor(ValTreePath.compile("spawn.pos"), Vector2.class));
+        assertEquals(new Integer(50), valTree.getChild("orc").queryForInteger(ValTreePath.compile("wizard.health")));
+        assertNull(valTree.queryForInteger(ValTreePath.compile("orc.does.not.exist")));
+    }
+
+    @Test
+    public void shouldAllowQueryingAFrozenTree() {
+        FrozenValTree frozen = valTree.freeze();
+
+        assertEquals(new Integer(100), frozen.queryForInteger(GRUNT_HEALTH));
+        assertEquals("mind control", frozen.queryForString(ValTreePath.compile("orc.wizard.ability")));
+        assertNull(frozen.query(ValTreePath.compile("orc.does.not.exist")));
+    }
+
+    @Test
+    public void shouldBeEqualWhenThePathIsTheSame() {
+        assertEquals(GRUNT_HEALTH, ValTreePath.compile("orc.grunt.health"));
+        assertEquals(GRUNT_HEALTH.hashCode(), ValTreePath.compile("orc.grunt.health").hashCode());
+        assertNotEquals(GRUNT_HEALTH, ValTreePath.compile("orc.grunt"));
+        assertEquals(3, GRUNT_HEALTH.size());
+        assertEquals("grunt", GRUNT_HEALTH.segment(1));
+        assertEquals("orc.grunt.health", GRUNT_HEALTH.toString());
+    }
+
+    private InputStream testFile(String filename) {
+        return Thread.currentThread().getContextClassLoader().getResourceAsStream(filename);
+    }
+}
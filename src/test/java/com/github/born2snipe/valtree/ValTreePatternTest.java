@@ -0,0 +1,129 @@
+package com.github.born2snipe.valtree;
+
+import com.badlogic.gdx.math.Vector2;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+public class ValTreePatternTest {
+    private ValTree valTree;
+
+    @Before
+    public void setUp() throws Exception {
+        valTree = new ValTree();
+        valTree.parse(testFile("example.txt"));
+    }
+
+    @Test
+    public void shouldMatchAnySingleKey() {
+        assertEquals(Arrays.asList("100", "250", "50"), values(valTree.find("orc.*.health")));
+        assertEquals(Arrays.asList("grunt", "knight", "wizard"), keys(valTree.find("orc.*")));
+        assertEquals(Arrays.asList("orc"), keys(valTree.find("*")));
+    }
+
+    @Test
+    public void shouldMatchAnyNumberOfKeys() {
+        assertEquals(Arrays.asList("flatulence", "mind control"), values(valTree.find("**.ability")));
+        assertEquals(Arrays.asList("flatulence", "mind control"), values(valTree.find("orc.**.ability")));
+        assertEquals(Arrays.asList("orc"), keys(valTree.find("**.orc")));
+        assertEquals(15, keys(valTree.find("**")).size());
+    }
+
+    @Test
+    public void shouldMatchExactPaths() {
+        assertEquals(Arrays.asList("250"), values(valTree.find("orc.knight.health")));
+        assertEquals(new ArrayList<String>(), values(valTree.find("orc.dragon.health")));
+        assertEquals(new ArrayList<String>(), values(valTree.find("orc.*.health.max")));
+    }
+
+    @Test
+    public void shouldReturnEachNodeOnceInDocumentOrder() {
+        valTree.parseData("a\n a\n  b 1\n b 2\nb 3");
+
+        assertEquals(Arrays.asList("1", "2", "3"), values(valTree.find("**.**.b")));
+        assertEquals(Arrays.asList("1", "2"), values(valTree.find("**.a.**.b")));
+    }
+
+    @Test
+    public void shouldConvertTheMatches() {
+        List<Integer> healths = new ArrayList<Integer>();
+        for (Integer health : valTree.find("orc.*.health", Integer.class)) {
+            healths.add(health);
+        }
+        assertEquals(Arrays.asList(100, 250, 50), healths);
+
+        valTree.parseData("spawn\n a (1,2)\n b (3,4)");
+        Iterator<Vector2> positions = valTree.find("spawn.*", Vector2.class).iterator();
+        assertEquals(new Vector2(1, 2), positions.next());
+        assertEquals(new Vector2(3, 4), positions.next());
+        assertFalse(positions.hasNext());
+    }
+
+    @Test
+    public void shouldAllowIteratingTheTreeWhileIteratingMatches() {
+        List<String> keys = new ArrayList<String>();
+        for (ValTree unit : valTree.find("orc.*")) {
+            for (ValTree stat : unit) {
+                keys.add(stat.getKey());
+            }
+            for (ValTree ignored : valTree.getChild("orc")) {
+            }
+        }
+        assertEquals(11, keys.size());
+    }
+
+    @Test
+    public void shouldBuildLazilyParsedNodesAsTheyAreReached() {
+        valTree.parseLazy(ByteBuffer.wrap("a\n b\n  c 1\nd\n c 2".getBytes()));
+
+        assertEquals(Arrays.asList("1", "2"), values(valTree.find("**.c")));
+    }
+
+    @Test
+    public void shouldBlowUpWhenThereAreNoMoreMatches() {
+        Iterator<ValTree> matches = valTree.find("orc").iterator();
+        matches.next();
+        try {
+            matches.next();
+            fail();
+        } catch (NoSuchElementException expected) {
+        }
+    }
+
+    @Test
+    public void shouldBeEqualWhenThePatternIsTheSame() {
+        assertEquals(ValTreePattern.compile("orc.*"), ValTreePattern.compile("orc.*"));
+        assertEquals("orc.*", ValTreePattern.compile("orc.*").toString());
+    }
+
+    private List<String> values(Iterable<ValTree> matches) {
+        List<String> values = new ArrayList<String>();
+        for (ValTree match : matches) {
+            values.add(match.getString());
+        }
+        return values;
+    }
+
+    private List<String> keys(Iterable<ValTree> matches) {
+        List<String> keys = new ArrayList<String>();
+        for (ValTree match : matches) {
+            keys.add(match.getKey());
+        }
+        return keys;
+    }
+
+    private InputStream testFile(String filename) {
+        return Thread.currentThread().getContextClassLoader().getResourceAsStream(filename);
+    }
+}
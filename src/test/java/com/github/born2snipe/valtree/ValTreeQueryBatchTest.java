@@ -0,0 +1,61 @@
+package com.github.born2snipe.valtree;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.InputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ValTreeQueryBatchTest {
+    private ValTree valTree;
+
+    @Before
+    public void setUp() throws Exception {
+        valTree = new ValTree();
+        valTree.parse(testFile("example.txt"));
+    }
+
+    @Test
+    public void shouldReturnTheResultsInTheOrderOfTheQueries() {
+        String[] queries = {"orc.wizard.ability", "orc.grunt.health", "orc.knight", "orc.grunt.dexterity",
+                "orc.dragon.health", "orc.grunt.health", "orc", "orc."};
+
+        ValTree[] results = valTree.queryAll(queries);
+
+        assertEquals(queries.length, results.length);
+        for (int i = 0; i < queries.length; i++) {
+            assertSame(queries[i], valTree.query(queries[i]), results[i]);
+        }
+        assertNull(results[4]);
+    }
+
+    @Test
+    public void shouldAllowReusingTheBatch() {
+        ValTreeQueryBatch batch = ValTreeQueryBatch.compile("a.b", "a.c", "d");
+        ValTree[] results = new ValTree[batch.size()];
+
+        valTree.parseData("a\n b 1\n c 2\nd 3");
+        batch.resolve(valTree, results);
+        assertEquals("1", results[0].getString());
+        assertEquals("2", results[1].getString());
+        assertEquals("3", results[2].getString());
+
+        valTree.parseData("a\n c 4");
+        batch.resolve(valTree, results);
+        assertNull(results[0]);
+        assertEquals("4", results[1].getString());
+        assertNull(results[2]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldBlowUpWhenTheResultsDoNotFit() {
+        ValTreeQueryBatch.compile("a", "b").resolve(valTree, new ValTree[1]);
+    }
+
+    private InputStream testFile(String filename) {
+        return Thread.currentThread().getContextClassLoader().getResourceAsStream(filename);
+    }
+}
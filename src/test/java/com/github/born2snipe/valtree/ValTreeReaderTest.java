@@ -0,0 +1,92 @@
+package com.github.born2snipe.valtree;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static com.github.born2snipe.valtree.ValTreeReader.Event.END_DOCUMENT;
+import static com.github.born2snipe.valtree.ValTreeReader.Event.END_NODE;
+import static com.github.born2snipe.valtree.ValTreeReader.Event.START_NODE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ValTreeReaderTest {
+    @Test
+    public void shouldAllowCollectingValuesWithoutBuildingATree() {
+        ValTreeReader reader = new ValTreeReader(testFile("example.txt"));
+        ArrayList<String> healths = new ArrayList<String>();
+        try {
+            while (reader.next() != END_DOCUMENT) {
+                if (reader.getEvent() == START_NODE && "health".equals(reader.getKey())) {
+                    healths.add(reader.getValue());
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        assertEquals(Arrays.asList("100", "250", "50"), healths);
+    }
+
+    @Test
+    public void shouldEmitStartAndEndEventsInDocumentOrder() {
+        ValTreeReader reader = reader("a 1\n b\n  c 3\nd // comment\n\te 5");
+
+        assertStart(reader, "a", "1", 0);
+        assertStart(reader, "b", null, 1);
+        assertStart(reader, "c", "3", 2);
+        assertEnd(reader, 2);
+        assertEnd(reader, 1);
+        assertEnd(reader, 0);
+        assertStart(reader, "d", null, 0);
+        assertStart(reader, "e", "5", 1);
+        assertEnd(reader, 1);
+        assertEnd(reader, 0);
+        assertEquals(END_DOCUMENT, reader.next());
+        assertEquals(END_DOCUMENT, reader.next());
+    }
+
+    @Test
+    public void shouldNotCareIfTheLeadingWhitespaceIsNotMatchingBetweenSiblings() {
+        ValTreeReader reader = reader(" k1 1\n\tk2 2");
+
+        assertStart(reader, "k1", "1", 0);
+        assertEnd(reader, 0);
+        assertStart(reader, "k2", "2", 0);
+        assertEnd(reader, 0);
+        assertEquals(END_DOCUMENT, reader.next());
+    }
+
+    @Test
+    public void shouldOnlyProvideKeysAndValuesForStartEvents() {
+        ValTreeReader reader = reader("key value");
+        reader.next();
+        reader.next();
+
+        assertNull(reader.getKey());
+        assertNull(reader.getValue());
+    }
+
+    private void assertStart(ValTreeReader reader, String key, String value, int depth) {
+        assertEquals(START_NODE, reader.next());
+        assertEquals(key, reader.getKey());
+        assertEquals(value, reader.getValue());
+        assertEquals(depth, reader.getDepth());
+    }
+
+    private void assertEnd(ValTreeReader reader, int depth) {
+        assertEquals(END_NODE, reader.next());
+        assertEquals(depth, reader.getDepth());
+    }
+
+    private ValTreeReader reader(String content) {
+        return new ValTreeReader(new ByteArrayInputStream(content.getBytes()));
+    }
+
+    private InputStream testFile(String filename) {
+        return Thread.currentThread().getContextClassLoader().getResourceAsStream(filename);
+    }
+}
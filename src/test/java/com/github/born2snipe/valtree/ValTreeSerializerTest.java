@@ -0,0 +1,100 @@
+package com.github.born2snipe.valtree;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+
+import static org.junit.Assert.assertEquals;
+
+public class ValTreeSerializerTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private ValTree valTree;
+
+    @Before
+    public void setUp() throws Exception {
+        valTree = new ValTree();
+        valTree.parseData("orc\n grunt\n  health 100\n  empty\n knight\n  motto ¡för €uropa 😀!");
+    }
+
+    @Test
+    public void shouldWriteTheTextFormat() throws IOException {
+        assertEquals("orc\n grunt\n  health 100\n  empty\n knight\n  motto ¡för €uropa 😀!\n",
+                write(new ValTreeSerializer()));
+    }
+
+    @Test
+    public void shouldUseTheGivenPaddingAndLineEnding() throws IOException {
+        assertEquals("orc\r\n\tgrunt\r\n\t\thealth 100\r\n\t\tempty\r\n\tknight\r\n\t\tmotto ¡för €uropa 😀!\r\n",
+                write(new ValTreeSerializer('\t', "\r\n")));
+    }
+
+    @Test
+    public void shouldWriteToAChannel() throws IOException {
+        File file = tmp.newFile();
+        FileChannel channel = new FileOutputStream(file).getChannel();
+        try {
+            new ValTreeSerializer().write(valTree, channel);
+        } finally {
+            channel.close();
+        }
+
+        assertEquals(write(new ValTreeSerializer()), FileUtils.readFileToString(file, "UTF-8"));
+    }
+
+    @Test
+    public void shouldWriteTreesLargerThanTheBuffer() throws IOException {
+        ValTree tree = new ValTree();
+        ValTree parent = tree;
+        StringBuilder expected = new StringBuilder();
+        for (int depth = 0; depth < 500; depth++) {
+            ValTree child = new ValTree("child-" + depth, "välue-" + depth);
+            parent.addChild(child);
+            parent = child;
+            for (int i = 0; i < depth; i++) {
+                expected.append(' ');
+            }
+            expected.append("child-").append(depth).append(" välue-").append(depth).append('\n');
+        }
+
+        ValTreeSerializer serializer = new ValTreeSerializer();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        serializer.write(tree, output);
+        assertEquals(expected.toString(), new String(output.toByteArray(), "UTF-8"));
+
+        ByteArrayOutputStream again = new ByteArrayOutputStream();
+        serializer.write(tree, Channels.newChannel(again));
+        assertEquals(expected.toString(), new String(again.toByteArray(), "UTF-8"));
+    }
+
+    @Test
+    public void shouldBeReadBackAsTheSameTree() throws IOException {
+        ValTree readBack = new ValTree();
+        readBack.parseData(write(new ValTreeSerializer('\t', "\r\n")));
+
+        assertEquals(valTree.toString(), readBack.toString());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldBlowUpWhenANodeHasNoKey() throws IOException {
+        valTree.getChild("orc").parseData("shaman");
+
+        write(new ValTreeSerializer());
+    }
+
+    private String write(ValTreeSerializer serializer) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        serializer.write(valTree, output);
+        return new String(output.toByteArray(), "UTF-8");
+    }
+}
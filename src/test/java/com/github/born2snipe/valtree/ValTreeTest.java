@@ -2,19 +2,27 @@ package com.github.born2snipe.valtree;
 
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.utils.Array;
+import com.github.born2snipe.valtree.converter.ValueConverter;
+import com.github.born2snipe.valtree.converter.ValueConverterRegistry;
 import org.apache.commons.io.IOUtils;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
 
 import static org.junit.Assert.*;
 
@@ -29,6 +37,11 @@ public class ValTreeTest {
         valTree = new ValTree();
     }
 
+    @After
+    public void tearDown() throws Exception {
+        ValueConverterRegistry.global().unregister(Counted.class);
+    }
+
     @Test
     public void shouldReturnNullWhenNothingIsFoundForAQueryWithACustomType() {
         assertNull(valTree.queryFor("k1.k2", Integer.class));
@@ -76,6 +89,89 @@ public class ValTreeTest {
         assertEquals(new Vector2(1, 0), valTree.getChild("key").getValueAs(Vector2.class));
     }
 
+    @Test
+    public void shouldOnlyConvertAValueOnce() {
+        CountingConverter converter = new CountingConverter();
+        ValTree.registerConverter(Counted.class, converter);
+        valTree.addChild("key", "value");
+        ValTree child = valTree.getChild("key");
+
+        Counted first = child.getValueAs(Counted.class);
+        assertSame(first, child.getValueAs(Counted.class));
+        assertSame(first, valTree.queryFor("key", Counted.class));
+        assertEquals(1, converter.conversions);
+    }
+
+    @Test
+    public void shouldConvertOnEveryReadUnlessTheConverterIsCacheable() {
+        CountingConverter converter = new CountingConverter(false);
+        ValTree.registerConverter(Counted.class, converter);
+        valTree.addChild("key", "value");
+        ValTree child = valTree.getChild("key");
+
+        assertNotSame(child.getValueAs(Counted.class), child.getValueAs(Counted.class));
+        assertEquals(2, converter.conversions);
+    }
+
+    @Test
+    public void shouldCacheEveryTypeThatIsRead() {
+        CountingConverter converter = new CountingConverter();
+        ValTree.registerConverter(Counted.class, converter);
+        valTree.addChild("key", "5");
+        ValTree child = valTree.getChild("key");
+
+        Counted first = child.getValueAs(Counted.class);
+        Integer number = child.getValueAs(Integer.class);
+
+        assertSame(first, child.getValueAs(Counted.class));
+        assertSame(number, child.getValueAs(Integer.class));
+        assertEquals(1, converter.conversions);
+    }
+
+    @Test
+    public void shouldConvertAgainOnceTheValueChanges() {
+        CountingConverter converter = new CountingConverter();
+        ValTree.registerConverter(Counted.class, converter);
+        valTree.parseData("key value");
+        ValTree child = valTree.getChild("key");
+        child.getValueAs(Counted.class);
+
+        child.setValue("other");
+        assertEquals("other", child.getValueAs(Counted.class).text);
+
+        child.set("key", "again");
+        assertEquals("again", child.getValueAs(Counted.class).text);
+
+        valTree.reparse(new ByteArrayInputStream("key reparsed".getBytes()));
+        assertEquals("reparsed", child.getValueAs(Counted.class).text);
+
+        child.clear();
+        assertNull(child.getValueAs(Counted.class));
+        assertEquals(4, converter.conversions);
+    }
+
+    @Test
+    public void shouldConvertAgainOnceTheConverterIsReplaced() {
+        ValTree.registerConverter(Counted.class, new CountingConverter());
+        valTree.addChild("key", "value");
+        valTree.getChild("key").getValueAs(Counted.class);
+
+        CountingConverter replacement = new CountingConverter();
+        ValTree.registerConverter(Counted.class, replacement);
+        valTree.getChild("key").getValueAs(Counted.class);
+
+        assertEquals(1, replacement.conversions);
+    }
+
+    @Test
+    public void shouldHandOutCopiesOfMutableValues() {
+        valTree.addChild("spawn.pos", new Vector2(1, 2));
+
+        valTree.queryFor("spawn.pos", Vector2.class).set(5, 5);
+
+        assertEquals(new Vector2(1, 2), valTree.queryFor("spawn.pos", Vector2.class));
+    }
+
     @Test
     public void shouldNotWhipeOutExistingValuesWhenAddingAChildByQuery() {
         valTree.addChild("k1", "v1");
@@ -275,6 +371,71 @@ public class ValTreeTest {
         assertEquals(Arrays.asList("1", "2", "3"), actuals);
     }
     
+    @Test
+    public void shouldAllowNestingLoopsOverTheSameChildren() {
+        valTree.parseData("1\n2\n3");
+
+        ArrayList<String> pairs = new ArrayList<String>();
+        for (ValTree first : valTree) {
+            for (ValTree second : valTree) {
+                pairs.add(first.getKey() + second.getKey());
+            }
+        }
+
+        assertEquals(9, pairs.size());
+        assertEquals("33", pairs.get(8));
+    }
+
+    @Test
+    public void shouldAllowRemovingChildrenWhileIterating() {
+        valTree.parseData("1\n2\n3");
+
+        Iterator<ValTree> iterator = valTree.iterator();
+        iterator.next();
+        iterator.next();
+        iterator.remove();
+
+        assertNull(valTree.getChild("2"));
+        assertEquals(2, valTree.childCount());
+        assertEquals("3", iterator.next().getKey());
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void shouldAllowAccessingChildrenByPosition() {
+        valTree.parseData("1\n2\n3\n1 again");
+
+        assertEquals(3, valTree.childCount());
+        assertEquals("again", valTree.childAt(0).getString());
+        assertEquals("3", valTree.childAt(2).getKey());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void shouldBlowUpWhenThereIsNoChildAtThePosition() {
+        valTree.childAt(0);
+    }
+
+    @Test
+    public void shouldProvideViewsThatFollowTheChildren() {
+        valTree.parseData("1\n2");
+        List<ValTree> children = valTree.getChildrenView();
+
+        valTree.addChild("3", 3);
+
+        assertSame(children, valTree.getChildrenView());
+        assertSame(children, valTree.getChild("1").getSiblingsView());
+        assertEquals(3, children.size());
+        assertEquals("3", children.get(2).getKey());
+        assertTrue(valTree.getSiblingsView().isEmpty());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldNotAllowChangingTheChildrenThroughTheView() {
+        valTree.parseData("1");
+
+        valTree.getChildrenView().remove(0);
+    }
+
     @Test
     public void shouldAllowAddingChildrenTrees() {
         valTree.addChild(new ValTree("key", "value"));
@@ -349,6 +510,35 @@ public class ValTreeTest {
         assertEquals("value", valTree.getChild("key").getString());
     }
 
+    @Test
+    public void shouldSupportReadingFromAMemoryMappedFile() throws IOException {
+        File tmpFile = tmp.newFile();
+        IOUtils.write("// comment\r\nk1 v1\r\n\tk2   v\u00e9 2 // ignored\r\n\r\nk3", new FileOutputStream(tmpFile), "UTF-8");
+
+        valTree.parse(tmpFile);
+
+        assertEquals("v1", valTree.getChild("k1").getString());
+        assertEquals("v\u00e9 2", valTree.queryForString("k1.k2"));
+        assertTrue(valTree.getChild("k3").isNull());
+        assertEquals(2, valTree.size());
+    }
+
+    @Test
+    public void shouldSupportReadingFromAFileChannel() throws IOException {
+        File tmpFile = tmp.newFile();
+        IOUtils.write("key value", new FileOutputStream(tmpFile));
+
+        FileInputStream input = new FileInputStream(tmpFile);
+        try {
+            valTree.parse(input.getChannel());
+            assertTrue(input.getChannel().isOpen());
+        } finally {
+            input.close();
+        }
+
+        assertEquals("value", valTree.getChild("key").getString());
+    }
+
     @Test
     public void shouldIgnoreTrailingComments() {
         valTree.parseData("key value // ignore me");
@@ -357,6 +547,34 @@ public class ValTreeTest {
         assertEquals(1, valTree.size());
     }
 
+    @Test
+    public void shouldKeepATrailingCommentMarkerWithNothingAfterIt() {
+        valTree.parseData("key value //");
+
+        assertEquals("value //", valTree.getChild("key").getString());
+    }
+
+    @Test
+    public void shouldNotHaveAProblemWithOldMacLineEndings() {
+        valTree.parseData("1 v1\r 2 v2\r\r3 v3");
+
+        assertEquals("v1", valTree.getChild("1").getString());
+        assertEquals("v2", valTree.getChild("1").getChild("2").getString());
+        assertEquals("v3", valTree.getChild("3").getString());
+    }
+
+    @Test
+    public void shouldAllowLinesLongerThanTheReadBuffer() {
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            value.append(i % 10);
+        }
+        valTree.parseData("a\n\tkey " + value + "\nb");
+
+        assertEquals(value.toString(), valTree.queryForString("a.key"));
+        assertNotNull(valTree.getChild("b"));
+    }
+
     @Test
     public void shouldIgnoreCommentLines() {
         valTree.parseData("// ignore me\n\t  // ignore me too\nkey value");
@@ -414,6 +632,67 @@ public class ValTreeTest {
         assertEquals("value", valTree.getChild("key").getString());
     }
 
+    @Test
+    public void shouldAllowGettingPrimitiveValues() {
+        valTree.parseData("int -42\nlong 9000000000\nfloat 1.25\ndouble 3.141592653589793\nyes TRUE\nno false");
+
+        assertEquals(-42, valTree.getChild("int").getInt(0));
+        assertEquals(9000000000L, valTree.getChild("long").getLong(0));
+        assertEquals(1.25f, valTree.getChild("float").getFloat(0f), 0);
+        assertEquals(3.141592653589793, valTree.getChild("double").getDouble(0), 0);
+        assertTrue(valTree.getChild("yes").getBoolean(false));
+        assertFalse(valTree.getChild("no").getBoolean(true));
+        assertEquals(-42L, valTree.getChild("int").getLong(0));
+        assertEquals(-42f, valTree.getChild("int").getFloat(0f), 0);
+    }
+
+    @Test
+    public void shouldReturnTheDefaultWhenTheValueIsNotThatPrimitive() {
+        valTree.parseData("text hello\nlong 9000000000\nempty");
+
+        assertEquals(7, valTree.getChild("text").getInt(7));
+        assertEquals(7, valTree.getChild("long").getInt(7));
+        assertEquals(7L, valTree.getChild("empty").getLong(7));
+        assertEquals(7f, valTree.getChild("text").getFloat(7f), 0);
+        assertEquals(7.0, valTree.getChild("empty").getDouble(7), 0);
+        assertTrue(valTree.getChild("text").getBoolean(true));
+    }
+
+    @Test
+    public void shouldReparseThePrimitiveWhenTheValueChanges() {
+        valTree.addChild("key", 1);
+        ValTree child = valTree.getChild("key");
+        assertEquals(1, child.getInt(0));
+
+        child.setValue(2);
+        assertEquals(2, child.getInt(0));
+        assertEquals(new Integer(2), child.getInteger());
+
+        child.set("key", "oops");
+        assertEquals(0, child.getInt(0));
+    }
+
+    @Test
+    public void shouldAllowQueryingForPrimitiveValues() {
+        valTree.parseData("orc\n grunt\n  health 100\n  speed 1.5\n  angry true\n  gold 5000000000");
+
+        assertEquals(100, valTree.queryForInt("orc.grunt.health", 0));
+        assertEquals(1.5f, valTree.queryForFloat("orc.grunt.speed", 0f), 0);
+        assertEquals(1.5, valTree.queryForDouble("orc.grunt.speed", 0), 0);
+        assertEquals(5000000000L, valTree.queryForLong("orc.grunt.gold", 0));
+        assertTrue(valTree.queryForBoolean("orc.grunt.angry", false));
+        assertEquals(-1, valTree.queryForInt("orc.knight.health", -1));
+        assertEquals(100, valTree.queryForInt(ValTreePath.compile("orc.grunt.health"), 0));
+        assertEquals(-1f, valTree.queryForFloat(ValTreePath.compile("orc.knight.speed"), -1f), 0);
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void shouldBlowUpGettingAnIntegerThatIsNotANumber() {
+        valTree.parseData("key value");
+
+        valTree.getChild("key").getInteger();
+    }
+
     @Test
     public void shouldAllowGettingAnIntegerValue() {
         valTree.parseData("key 111");
@@ -425,4 +704,89 @@ public class ValTreeTest {
         valTree.parseData("key 2.33");
         assertEquals(2.33f, valTree.getChild("key").getFloat(), 0.1);
     }
+
+    @Test
+    public void shouldConvertWithTheRegistryOfTheTree() {
+        ValueConverterRegistry registry = new ValueConverterRegistry();
+        CountingConverter converter = new CountingConverter();
+        registry.register(Counted.class, converter);
+        valTree.setConverters(registry);
+        valTree.parseData("boss\n name ogre\n level 3");
+        valTree.addChild("added", new Counted("later"));
+
+        assertEquals("ogre", valTree.queryFor("boss.name", Counted.class).text);
+        assertEquals("later", valTree.getChild("added").getString());
+        assertEquals(new Integer(3), valTree.queryFor("boss.level", Integer.class));
+        assertEquals(1, converter.conversions);
+    }
+
+    @Test
+    public void shouldGiveAddedTreesTheRegistryOfTheirParent() {
+        ValueConverterRegistry registry = new ValueConverterRegistry();
+        valTree.setConverters(registry);
+        ValTree child = new ValTree("child", null);
+        child.addChild(new ValTree("grandchild", "value"));
+
+        valTree.addChild(child);
+
+        assertSame(registry, child.getConverters());
+        assertSame(registry, child.getChild("grandchild").getConverters());
+        assertSame(ValueConverterRegistry.global(), new ValTree().getConverters());
+    }
+
+    @Test
+    public void shouldReadVectorsIntoTheGivenInstance() {
+        valTree.parseData("player\n spawn (-10.5, 2e1)\n camera (1, 2, 3)\n empty");
+        Vector2 spawn = new Vector2();
+        Vector3 camera = new Vector3();
+
+        assertSame(spawn, valTree.queryFor("player.spawn", spawn));
+        assertEquals(new Vector2(-10.5f, 20f), spawn);
+        assertSame(camera, valTree.queryFor(ValTreePath.compile("player.camera"), camera));
+        assertEquals(new Vector3(1, 2, 3), camera);
+        assertNull(valTree.queryFor("player.missing", spawn));
+        assertNull(valTree.query("player.empty").getValueAs(spawn));
+
+        spawn.set(0, 0);
+        valTree.query("player.spawn").getValueAs(spawn);
+        assertEquals(new Vector2(-10.5f, 20f), spawn);
+        assertEquals(new Vector2(-10.5f, 20f), valTree.queryFor("player.spawn", Vector2.class));
+    }
+
+    private static class Counted {
+        final String text;
+
+        Counted(String text) {
+            this.text = text;
+        }
+    }
+
+    private static class CountingConverter extends ValueConverter<Counted> {
+        final boolean cacheable;
+        int conversions;
+
+        CountingConverter() {
+            this(true);
+        }
+
+        CountingConverter(boolean cacheable) {
+            this.cacheable = cacheable;
+        }
+
+        @Override
+        public boolean isCacheable() {
+            return cacheable;
+        }
+
+        @Override
+        protected Counted fromText(String text) {
+            conversions++;
+            return new Counted(text);
+        }
+
+        @Override
+        protected String toText(Counted value) {
+            return value.text;
+        }
+    }
 }
@@ -0,0 +1,165 @@
+package com.github.born2snipe.valtree;
+
+import com.badlogic.gdx.math.Vector2;
+import com.github.born2snipe.valtree.converter.ValueConverter;
+import com.github.born2snipe.valtree.converter.ValueConverterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.channels.Channels;
+
+import static org.junit.Assert.assertEquals;
+
+public class ValTreeWriterTest {
+    private ByteArrayOutputStream output;
+    private ValTreeWriter writer;
+
+    @Before
+    public void setUp() throws Exception {
+        output = new ByteArrayOutputStream();
+        writer = new ValTreeWriter(output);
+    }
+
+    @Test
+    public void shouldWriteTheSameTextAsSavingATree() throws UnsupportedEncodingException {
+        writer.startNode("orc");
+        writer.startNode("grunt", "the ügly");
+        writer.leaf("health", 100);
+        writer.leaf("speed", 1.5f);
+        writer.leaf("gold", 5000000000L);
+        writer.leaf("angry", true);
+        writer.leaf("empty");
+        writer.endNode();
+        writer.leaf("position", new Vector2(1, 2));
+        writer.endNode();
+        writer.leaf("done");
+        writer.close();
+
+        ValTree expected = new ValTree();
+        expected.addChild("orc", null);
+        expected.getChild("orc").addChild("grunt", "the ügly");
+        ValTree grunt = expected.getChild("orc").getChild("grunt");
+        grunt.addChild("health", 100);
+        grunt.addChild("speed", 1.5f);
+        grunt.addChild("gold", Long.valueOf(5000000000L));
+        grunt.addChild("angry", true);
+        grunt.addChild("empty", null);
+        expected.getChild("orc").addChild("position", new Vector2(1, 2));
+        expected.addChild("done", null);
+        ByteArrayOutputStream saved = new ByteArrayOutputStream();
+        expected.save(saved);
+
+        assertEquals(new String(saved.toByteArray(), "UTF-8"), new String(output.toByteArray(), "UTF-8"));
+    }
+
+    @Test
+    public void shouldBeReadBackByTheParser() {
+        for (int i = 0; i < 1000; i++) {
+            writer.startNode("unit-" + i);
+            writer.leaf("health", i);
+            writer.startNode("stats").leaf("strength", i * 2).endNode();
+            writer.endNode();
+        }
+        writer.close();
+
+        ValTree tree = new ValTree();
+        tree.parse(new ByteArrayInputStream(output.toByteArray()));
+
+        assertEquals(1000, tree.size());
+        assertEquals(1998, tree.queryForInt("unit-999.stats.strength", 0));
+        assertEquals(500, tree.queryForInt("unit-500.health", 0));
+    }
+
+    @Test
+    public void shouldUseTheGivenPaddingAndLineEnding() throws UnsupportedEncodingException {
+        writer = new ValTreeWriter(Channels.newChannel(output), '\t', "\r\n");
+        writer.startNode("a").startNode("b").leaf("c", "3");
+        writer.close();
+
+        assertEquals("a\r\n\tb\r\n\t\tc 3\r\n", new String(output.toByteArray(), "UTF-8"));
+    }
+
+    @Test
+    public void shouldConvertValuesWithTheGivenRegistry() throws UnsupportedEncodingException {
+        ValueConverterRegistry registry = new ValueConverterRegistry();
+        registry.register(Vector2.class, new ValueConverter<Vector2>() {
+            @Override
+            protected Vector2 fromText(String text) {
+                return null;
+            }
+
+            @Override
+            protected String toText(Vector2 value) {
+                return value.x + " by " + value.y;
+            }
+        });
+        writer.setConverters(registry);
+
+        writer.leaf("size", new Vector2(3, 4));
+        writer.close();
+
+        assertEquals("size 3.0 by 4.0\n", new String(output.toByteArray(), "UTF-8"));
+    }
+
+    @Test
+    public void shouldKeepTrackOfTheDepth() {
+        writer.startNode("a").startNode("b");
+        assertEquals(2, writer.getDepth());
+
+        writer.endNode();
+        assertEquals(1, writer.getDepth());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldBlowUpWhenEndingMoreNodesThanWereStarted() {
+        writer.startNode("a").endNode().endNode();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldBlowUpWhenAKeyContainsWhiteSpace() {
+        writer.leaf("two words", "value");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldBlowUpWhenAValueSpansLines() {
+        writer.leaf("key", "first\nsecond");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldBlowUpWhenAValueContainsAComment() {
+        writer.leaf("url", "http://example.com");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldBlowUpWhenAKeyContainsAComment() {
+        writer.startNode("a//b");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldBlowUpWhenAValueStartsWithWhiteSpace() {
+        writer.leaf("key", " value");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldBlowUpWhenAValueEndsWithWhiteSpace() {
+        writer.leaf("key", "value\t");
+    }
+
+    @Test
+    public void shouldReadBackValuesThatOnlyLookLikeComments() {
+        writer.leaf("path", "a / b");
+        writer.leaf("slashes", "ends with //");
+        writer.leaf("inner", "two  spaces");
+        writer.close();
+
+        ValTree tree = new ValTree();
+        tree.parse(new ByteArrayInputStream(output.toByteArray()));
+
+        assertEquals("a / b", tree.queryForString("path"));
+        assertEquals("ends with //", tree.queryForString("slashes"));
+        assertEquals("two  spaces", tree.queryForString("inner"));
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.born2snipe.valtree.converter;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class NumberScannerTest {
+    private static final String[] NUMBERS = {"0", "-0", "1", "-1", "+7", "42", "0.5", ".5", "5.", "-12.75", "0.1",
+            "0.3", "3.14159", "1e10", "1E-5", "-2.5e+3", "6.02214076e23", "1.7976931348623157e308", "4.9e-324",
+            "123456789012345678", "0.000001", "100000000", "16777217", "NaN", "-Infinity", "1.5f", "2d", "0x1p3",
+            " 5 "};
+
+    @Test
+    public void shouldReadTheSameDoublesAsTheJdk() {
+        for (String number : NUMBERS) {
+            assertEquals(number, Double.parseDouble(number), NumberScanner.scanDouble(number, 0, number.length()), 0);
+        }
+    }
+
+    @Test
+    public void shouldReadTheSameFloatsAsTheJdk() {
+        for (String number : NUMBERS) {
+            assertEquals(number, Float.parseFloat(number), NumberScanner.scanFloat(number, 0, number.length()), 0);
+        }
+    }
+
+    @Test
+    public void shouldReadTheSameRandomNumbersAsTheJdk() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            String number = (random.nextInt(2000000) - 1000000) / Math.pow(10, random.nextInt(8)) + "";
+            assertEquals(number, Double.doubleToLongBits(Double.parseDouble(number)),
+                    Double.doubleToLongBits(NumberScanner.scanDouble(number, 0, number.length())));
+            assertEquals(number, Float.floatToIntBits(Float.parseFloat(number)),
+                    Float.floatToIntBits(NumberScanner.scanFloat(number, 0, number.length())));
+        }
+    }
+
+    @Test
+    public void shouldOnlyReadTheRange() {
+        String text = "(12.5, -3)";
+
+        assertEquals(12.5f, NumberScanner.scanFloat(text, 1, 5), 0);
+        assertEquals(-3, NumberScanner.scanInt(text, 7, 9));
+    }
+
+    @Test
+    public void shouldReadWholeNumbers() {
+        assertEquals(Long.MAX_VALUE, NumberScanner.scanLong("9223372036854775807", 0, 19));
+        assertEquals(Long.MIN_VALUE, NumberScanner.scanLong("-9223372036854775808", 0, 20));
+        assertEquals(Integer.MIN_VALUE, NumberScanner.scanInt("-2147483648", 0, 11));
+        assertEquals(12, NumberScanner.scanInt("+12", 0, 3));
+    }
+
+    @Test
+    public void shouldBlowUpForWholeNumbersThatAreNotValid() {
+        for (String number : new String[]{"", "-", "+", "1.5", "9223372036854775808", "-9223372036854775809", "1a", " 1"}) {
+            try {
+                NumberScanner.scanLong(number, 0, number.length());
+                fail(number);
+            } catch (NumberFormatException expected) {
+            }
+        }
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void shouldBlowUpForIntsThatDoNotFit() {
+        NumberScanner.scanInt("2147483648", 0, 10);
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void shouldBlowUpForDecimalsThatAreNotValid() {
+        NumberScanner.scanDouble("1.2.3", 0, 5);
+    }
+}
@@ -0,0 +1,198 @@
+package com.github.born2snipe.valtree.converter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ValueConverterRegistryTest {
+    private ValueConverterRegistry registry;
+
+    @Before
+    public void setUp() throws Exception {
+        registry = new ValueConverterRegistry(null);
+    }
+
+    @Test
+    public void shouldUseTheConverterOfTheClosestSuperClass() {
+        NameConverter animals = new NameConverter();
+        NameConverter dogs = new NameConverter();
+        registry.register(Animal.class, animals);
+        registry.register(Dog.class, dogs);
+
+        assertSame(dogs, registry.get(Puppy.class));
+        assertSame(animals, registry.get(Cat.class));
+    }
+
+    @Test
+    public void shouldUseTheConverterOfAnImplementedInterface() {
+        NameConverter named = new NameConverter();
+        registry.register(Named.class, named);
+
+        assertSame(named, registry.get(Cat.class));
+        assertSame(named, registry.get(Puppy.class));
+    }
+
+    @Test
+    public void shouldPreferSuperClassesOverInterfaces() {
+        NameConverter named = new NameConverter();
+        NameConverter animals = new NameConverter();
+        registry.register(Named.class, named);
+        registry.register(Animal.class, animals);
+
+        assertSame(animals, registry.get(Cat.class));
+    }
+
+    @Test
+    public void shouldCreateConvertersForEnumsAutomatically() {
+        ValueConverter converter = registry.get(EnumConverterTest.Trait.class);
+
+        assertEquals(EnumConverterTest.Trait.READING_MINDS, converter.convertFromText("reading minds"));
+        assertSame(converter, registry.get(EnumConverterTest.Trait.class));
+    }
+
+    @Test
+    public void shouldConvertEnumConstantsWithABodyAsTheirEnum() {
+        ValueConverter converter = registry.get(Mood.HAPPY.getClass());
+
+        assertEquals("HAPPY", converter.convertToText(Mood.HAPPY));
+        assertSame(Mood.HAPPY, converter.convertFromText("happy"));
+    }
+
+    @Test
+    public void shouldReturnNullWhenThereIsNoConverter() {
+        assertNull(registry.find(Cat.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldBlowUpWhenGettingATypeWithoutAConverter() {
+        registry.get(Cat.class);
+    }
+
+    @Test
+    public void shouldFindConvertersRegisteredAfterAFailedLookup() {
+        assertNull(registry.find(Cat.class));
+
+        NameConverter animals = new NameConverter();
+        registry.register(Animal.class, animals);
+
+        assertSame(animals, registry.find(Cat.class));
+    }
+
+    @Test
+    public void shouldFallBackOnceAConverterIsUnregistered() {
+        NameConverter animals = new NameConverter();
+        registry.register(Animal.class, animals);
+        registry.register(Cat.class, new NameConverter());
+
+        registry.unregister(Cat.class);
+
+        assertSame(animals, registry.get(Cat.class));
+    }
+
+    @Test
+    public void shouldPreferItsOwnConvertersOverTheParents() {
+        NameConverter animals = new NameConverter();
+        NameConverter cats = new NameConverter();
+        registry.register(Animal.class, animals);
+        ValueConverterRegistry child = new ValueConverterRegistry(registry);
+        child.register(Cat.class, cats);
+
+        assertSame(cats, child.get(Cat.class));
+        assertSame(animals, child.get(Dog.class));
+        assertSame(animals, registry.get(Cat.class));
+    }
+
+    @Test
+    public void shouldFallBackToTheGlobalRegistryByDefault() {
+        ValueConverterRegistry child = new ValueConverterRegistry();
+
+        assertNotNull(child.find(Integer.class));
+        assertSame(ValueConverterRegistry.global().get(Integer.class), child.get(Integer.class));
+    }
+
+    @Test
+    public void shouldChangeTheVersionWhenRegistering() {
+        int version = registry.getVersion();
+
+        registry.register(Animal.class, new NameConverter());
+
+        assertEquals(version + 1, registry.getVersion());
+    }
+
+    @Test
+    public void shouldChangeTheVersionOfChildrenWhenTheParentChanges() {
+        ValueConverterRegistry child = new ValueConverterRegistry(registry);
+        int version = child.getVersion();
+
+        registry.register(Animal.class, new NameConverter());
+
+        assertEquals(version + 1, child.getVersion());
+    }
+
+    @Test
+    public void shouldKeepOtherRegistriesCachedWhenRegistering() {
+        ValueConverterRegistry sibling = new ValueConverterRegistry(registry);
+        ValueConverterRegistry child = new ValueConverterRegistry(registry);
+        int globalVersion = ValueConverterRegistry.global().getVersion();
+        int siblingVersion = sibling.getVersion();
+        int parentVersion = registry.getVersion();
+
+        child.register(Cat.class, new NameConverter());
+
+        assertEquals(globalVersion, ValueConverterRegistry.global().getVersion());
+        assertEquals(siblingVersion, sibling.getVersion());
+        assertEquals(parentVersion, registry.getVersion());
+    }
+
+    @Test
+    public void shouldResolveAgainOnceAParentChanges() {
+        ValueConverterRegistry child = new ValueConverterRegistry(registry);
+        assertNull(child.find(Cat.class));
+
+        NameConverter animals = new NameConverter();
+        registry.register(Animal.class, animals);
+
+        assertSame(animals, child.find(Cat.class));
+    }
+
+    private interface Named {
+    }
+
+    private static class Animal {
+    }
+
+    private static class Dog extends Animal implements Named {
+    }
+
+    private static class Puppy extends Dog {
+    }
+
+    private static class Cat extends Animal implements Named {
+    }
+
+    private enum Mood {
+        HAPPY {
+            @Override
+            public String toString() {
+                return "happy";
+            }
+        },
+        SAD
+    }
+
+    private static class NameConverter extends ValueConverter<Object> {
+        @Override
+        protected Object fromText(String text) {
+            return text;
+        }
+
+        @Override
+        protected String toText(Object value) {
+            return value.getClass().getSimpleName();
+        }
+    }
+}
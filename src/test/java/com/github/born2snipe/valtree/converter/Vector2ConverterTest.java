@@ -5,6 +5,8 @@ import org.junit.Before;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 public class Vector2ConverterTest {
     private Vector2Converter converter;
@@ -31,4 +33,30 @@ public class Vector2ConverterTest {
         assertEquals(new Vector2(1, 2), converter.convertFromText("1, 2"));
         assertEquals(new Vector2(1.1f, 2.2f), converter.convertFromText("1.1, 2.2"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldReadNegativeNumbersAndExponents() {
+        assertEquals(new Vector2(-1.5f, 200f), converter.convertFromText("(-1.5, 2e2)"));
+        assertEquals(new Vector2(0.025f, -3f), converter.convertFromText("+2.5E-2,-3"));
+    }
+
+    @Test
+    public void shouldReadIntoTheGivenVector() {
+        Vector2 out = new Vector2();
+
+        assertSame(out, converter.convertFromText("(3, 4)", out));
+        assertEquals(new Vector2(3, 4), out);
+        assertNull(converter.convertFromText("  ", out));
+        assertEquals(new Vector2(3, 4), out);
+    }
+
+    @Test(expected = UnableToConvertFromTextException.class)
+    public void shouldBlowUpWhenThereAreTooManyComponents() {
+        converter.convertFromText("(1, 2, 3)");
+    }
+
+    @Test(expected = UnableToConvertFromTextException.class)
+    public void shouldBlowUpWhenAComponentIsMissing() {
+        converter.convertFromText("(1, )");
+    }
+}
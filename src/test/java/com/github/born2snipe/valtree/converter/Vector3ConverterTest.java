@@ -5,6 +5,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 public class Vector3ConverterTest {
     private Vector3Converter converter;
@@ -32,4 +33,22 @@ public class Vector3ConverterTest {
         assertEquals(expectedVector, converter.convertFromText("( 1.0, 2.0 , 3.0 )"));
         assertEquals(expectedVector, converter.convertFromText("1.0,2.0,3.0"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldReadNegativeNumbersAndExponents() {
+        assertEquals(new Vector3(-1, 0.5f, 1000), converter.convertFromText("(-1, 5e-1, 1E3)"));
+    }
+
+    @Test
+    public void shouldReadIntoTheGivenVector() {
+        Vector3 out = new Vector3();
+
+        assertSame(out, converter.convertFromText("(3, 4, 5)", out));
+        assertEquals(new Vector3(3, 4, 5), out);
+    }
+
+    @Test(expected = UnableToConvertFromTextException.class)
+    public void shouldBlowUpWhenAComponentIsMissing() {
+        converter.convertFromText("(1, 2)");
+    }
+}